@@ -23,7 +23,6 @@
  */
 package com.intuit.karate.http.apache;
 
-import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptContext;
 import org.apache.http.conn.ssl.LenientSslConnectionSocketFactory;
 
@@ -41,9 +40,12 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.security.KeyStore;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.ssl.SSLContext;
 
@@ -59,6 +61,10 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustAllStrategy;
@@ -69,6 +75,7 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.cookie.BasicClientCookie;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
@@ -81,7 +88,7 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
 
     public static final String URI_CONTEXT_KEY = ApacheHttpClient.class.getName() + ".URI";
 
-    private HttpClientBuilder clientBuilder;
+    private CloseableHttpClient client;
     private URIBuilder uriBuilder;
     private RequestBuilder requestBuilder;
     private CookieStore cookieStore;
@@ -97,22 +104,60 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
         }
     }
 
-    @Override
-    public void configure(HttpConfig config, ScriptContext context) {
-        clientBuilder = HttpClientBuilder.create();
-        charset = config.getCharset();
-        if (!config.isFollowRedirects()) {
-            clientBuilder.disableRedirectHandling();
-        } else { // support redirect on POST by default
-            clientBuilder.setRedirectStrategy(new LaxRedirectStrategy());
+    private static final int MAX_CONNECTION_MANAGERS = 16;
+
+    // least recently used first, a manager pushed out here may still be in use by a client
+    // so only its idle connections are closed, and the pool itself closes when it is collected
+    private static final Map<List<Object>, PoolingHttpClientConnectionManager> CONNECTION_MANAGERS
+            = new LinkedHashMap<List<Object>, PoolingHttpClientConnectionManager>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<List<Object>, PoolingHttpClientConnectionManager> eldest) {
+            if (size() <= MAX_CONNECTION_MANAGERS) {
+                return false;
+            }
+            PoolingHttpClientConnectionManager cm = eldest.getValue();
+            cm.closeExpiredConnections();
+            cm.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            return true;
         }
-        clientBuilder.useSystemProperties();
-        cookieStore = new BasicCookieStore();
-        clientBuilder.setDefaultCookieStore(cookieStore);
-        clientBuilder.setDefaultCookieSpecRegistry(LenientCookieSpec.registry());
-        AtomicInteger counter = new AtomicInteger();
-        clientBuilder.addInterceptorLast(new RequestLoggingInterceptor(counter, context));
-        clientBuilder.addInterceptorLast(new ResponseLoggingInterceptor(counter, context));
+    };
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (CONNECTION_MANAGERS) {
+                CONNECTION_MANAGERS.values().forEach(PoolingHttpClientConnectionManager::close);
+                CONNECTION_MANAGERS.clear();
+            }
+        }));
+    }
+
+    private static List<Object> getConnectionManagerKey(HttpConfig config, ScriptContext context) {
+        boolean hasStores = config.getSslKeyStore() != null || config.getSslTrustStore() != null;
+        return Arrays.asList(
+                config.isSslEnabled(), config.getSslAlgorithm(), config.isSslTrustAll(),
+                config.getSslKeyStore(), config.getSslKeyStorePassword(), config.getSslKeyStoreType(),
+                config.getSslTrustStore(), config.getSslTrustStorePassword(), config.getSslTrustStoreType(),
+                hasStores ? context.getEnv().featureDir : null, // relative paths resolve against the feature
+                config.getProxyUri(), config.getProxyUsername(),
+                config.getConnectTimeout(), config.getReadTimeout(),
+                config.getMaxConnectionsPerRoute(), config.getMaxConnectionsTotal());
+    }
+
+    /**
+     * connection managers are shared process-wide by all clients that have the
+     * same effective ssl / proxy / timeout settings, so that connections (and
+     * tls sessions) are re-used across steps, scenarios and threads
+     */
+    private static PoolingHttpClientConnectionManager getConnectionManager(HttpConfig config, ScriptContext context) {
+        List<Object> key = getConnectionManagerKey(config, context);
+        synchronized (CONNECTION_MANAGERS) {
+            return CONNECTION_MANAGERS.computeIfAbsent(key, k -> createConnectionManager(config, context));
+        }
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(HttpConfig config, ScriptContext context) {
+        RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
         if (config.isSslEnabled()) {
             // System.setProperty("jsse.enableSNIExtension", "false");
             String algorithm = config.getSslAlgorithm(); // could be null
@@ -142,9 +187,37 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
                 context.logger.error("ssl context init failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-            SSLConnectionSocketFactory socketFactory = new LenientSslConnectionSocketFactory(sslContext, new NoopHostnameVerifier());
-            clientBuilder.setSSLSocketFactory(socketFactory);
+            registryBuilder.register("https", new LenientSslConnectionSocketFactory(sslContext, new NoopHostnameVerifier()));
+        } else {
+            registryBuilder.register("https", SSLConnectionSocketFactory.getSystemSocketFactory());
+        }
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(registryBuilder.build());
+        cm.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        cm.setMaxTotal(config.getMaxConnectionsTotal());
+        cm.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(config.getReadTimeout()).build());
+        return cm;
+    }
+
+    @Override
+    public void configure(HttpConfig config, ScriptContext context) {
+        HttpClientBuilder clientBuilder = HttpClientBuilder.create();
+        charset = config.getCharset();
+        if (!config.isFollowRedirects()) {
+            clientBuilder.disableRedirectHandling();
+        } else { // support redirect on POST by default
+            clientBuilder.setRedirectStrategy(new LaxRedirectStrategy());
         }
+        clientBuilder.useSystemProperties();
+        cookieStore = new BasicCookieStore();
+        clientBuilder.setDefaultCookieStore(cookieStore);
+        clientBuilder.setDefaultCookieSpecRegistry(LenientCookieSpec.registry());
+        AtomicInteger counter = new AtomicInteger();
+        clientBuilder.addInterceptorLast(new RequestLoggingInterceptor(counter, context));
+        clientBuilder.addInterceptorLast(new ResponseLoggingInterceptor(counter, context));
+        // the pool is keyed by ssl material, so connections never need to carry per-user state
+        clientBuilder.setConnectionManager(getConnectionManager(config, context));
+        clientBuilder.setConnectionManagerShared(true);
+        clientBuilder.disableConnectionState();
         RequestConfig.Builder configBuilder = RequestConfig.custom()
                 .setCookieSpec(LenientCookieSpec.KARATE)
                 .setConnectTimeout(config.getConnectTimeout())
@@ -166,6 +239,7 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
                 throw new RuntimeException(e);
             }
         }
+        client = clientBuilder.build();
     }
 
     @Override
@@ -260,27 +334,22 @@ public class ApacheHttpClient extends HttpClient<HttpEntity> {
             requestBuilder.setHeader(entity.getContentType());
         }
         HttpUriRequest httpRequest = requestBuilder.build();
-        CloseableHttpClient client = clientBuilder.build();
         BasicHttpContext context = new BasicHttpContext();
         context.setAttribute(URI_CONTEXT_KEY, getRequestUri());
         CloseableHttpResponse httpResponse;
-        byte[] bytes;
+        HttpResponse response;
         try {
             httpResponse = client.execute(httpRequest, context);
-            HttpEntity responseEntity = httpResponse.getEntity();
-            if (responseEntity == null || responseEntity.getContent() == null) {
-                bytes = new byte[0];
-            } else {
-                InputStream is = responseEntity.getContent();
-                bytes = FileUtils.toBytes(is);
+            try {
+                HttpEntity responseEntity = httpResponse.getEntity();
+                response = readResponse(responseEntity == null ? null : responseEntity.getContent(), startTime);
+            } finally { // releases the connection back to the pool
+                httpResponse.close();
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        long responseTime = getResponseTime(startTime);
-        HttpResponse response = new HttpResponse(responseTime);
         response.setUri(getRequestUri());
-        response.setBody(bytes);
         response.setStatus(httpResponse.getStatusLine().getStatusCode());
         for (Cookie c : cookieStore.getCookies()) {
             com.intuit.karate.http.Cookie cookie = new com.intuit.karate.http.Cookie(c.getName(), c.getValue());
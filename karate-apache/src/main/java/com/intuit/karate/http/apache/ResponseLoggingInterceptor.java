@@ -25,6 +25,7 @@ package com.intuit.karate.http.apache;
 
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptContext;
+import com.intuit.karate.http.HttpUtils;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.http.HttpEntity;
@@ -58,7 +59,9 @@ public class ResponseLoggingInterceptor implements HttpResponseInterceptor {
         sb.append('\n').append(id).append(" < ").append(response.getStatusLine().getStatusCode()).append('\n');
         LoggingUtils.logHeaders(sb, id, '<', response);
         HttpEntity entity = response.getEntity();
-        if (LoggingUtils.isPrintable(entity)) {
+        if (entity != null && HttpUtils.isStreamedBody(entity.getContentLength(), context.getConfig())) {
+            sb.append("(streamed, not logged)\n");
+        } else if (LoggingUtils.isPrintable(entity)) {
             LoggingEntityWrapper wrapper = new LoggingEntityWrapper(entity);
             String buffer = FileUtils.toString(wrapper.getContent());
             sb.append(buffer).append('\n');
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.http.HttpConfig;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * per-thread cache of the state left behind by karate-config.js, so that the
+ * config is evaluated once per thread and karate.env instead of once per scenario
+ * 
+ * mutable values (json, xml, maps and lists) are deep-copied into each new
+ * scenario, and top-level functions are re-evaluated so that any references
+ * to 'karate' resolve to the scenario that is running instead of the one that
+ * happened to evaluate the config first
+ *
+ * re-evaluating a function from its source loses whatever it closed over, so
+ * if any function refers to something outside itself (e.g. a local variable in
+ * karate-config.js) the config is not cached and is evaluated for every scenario
+ *
+ * @author pthomas3
+ */
+public class ConfigCache {
+
+    private static final ThreadLocal<Map<List<Object>, ConfigCache>> CACHE = ThreadLocal.withInitial(HashMap::new);
+
+    // so that a config that cannot be cached is only checked once per thread
+    private static final ConfigCache NOT_CACHEABLE = new ConfigCache(null, null);
+
+    private final ScriptValueMap vars;
+    private final HttpConfig config;
+
+    private ConfigCache(ScriptValueMap vars, HttpConfig config) {
+        this.vars = vars;
+        this.config = config;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ScriptBindings.KARATE_CONFIG_CACHE);
+    }
+
+    public static void clear() {
+        CACHE.get().clear();
+    }
+
+    private static List<Object> key(ScriptEnv env, String configPath) {
+        return Arrays.asList(env.env, configPath, env.fileClassLoader);
+    }
+
+    public static ConfigCache get(ScriptEnv env, String configPath) {
+        ConfigCache cached = CACHE.get().get(key(env, configPath));
+        return cached == NOT_CACHEABLE ? null : cached;
+    }
+
+    public static void put(ScriptEnv env, String configPath, ScriptContext context) {
+        List<Object> key = key(env, configPath);
+        if (CACHE.get().get(key) == NOT_CACHEABLE) {
+            return;
+        }
+        String notSelfContained = findNotSelfContained(context);
+        if (notSelfContained != null) {
+            context.logger.warn("not caching karate config, function '{}' refers to variables declared outside it", notSelfContained);
+            CACHE.get().put(key, NOT_CACHEABLE);
+            return;
+        }
+        // the evaluating scenario goes on to mutate its own values, so copy first
+        ScriptValueMap vars = new ScriptValueMap();
+        for (Map.Entry<String, ScriptValue> entry : context.vars.entrySet()) {
+            vars.put(entry.getKey(), entry.getValue().copy());
+        }
+        CACHE.get().put(key, new ConfigCache(vars, copy(context.config, context, false)));
+    }
+
+    public void restore(ScriptContext context) {
+        for (Map.Entry<String, ScriptValue> entry : vars.entrySet()) {
+            context.vars.put(entry.getKey(), fork(entry.getValue(), context));
+        }
+        context.configure(copy(config, context, true));
+    }
+
+    private static HttpConfig copy(HttpConfig config, ScriptContext context, boolean rebind) {
+        HttpConfig copy = new HttpConfig(config);
+        copy.setHeaders(rebind ? fork(config.getHeaders(), context) : config.getHeaders().copy());
+        copy.setCookies(rebind ? fork(config.getCookies(), context) : config.getCookies().copy());
+        copy.setResponseHeaders(rebind ? fork(config.getResponseHeaders(), context) : config.getResponseHeaders().copy());
+        copy.setAfterScenario(rebind ? fork(config.getAfterScenario(), context) : config.getAfterScenario());
+        copy.setAfterFeature(rebind ? fork(config.getAfterFeature(), context) : config.getAfterFeature());
+        return copy;
+    }
+
+    private static String findNotSelfContained(ScriptContext context) {
+        JsEngine js = ScriptBindings.getJsEngine();
+        for (Map.Entry<String, ScriptValue> entry : context.vars.entrySet()) {
+            if (entry.getValue().isFunction() && !js.isSelfContained(entry.getValue().getValue())) {
+                return entry.getKey();
+            }
+        }
+        HttpConfig config = context.config;
+        ScriptValue[] configured = {config.getHeaders(), config.getCookies(), config.getResponseHeaders(),
+            config.getAfterScenario(), config.getAfterFeature()};
+        String[] names = {"headers", "cookies", "responseHeaders", "afterScenario", "afterFeature"};
+        for (int i = 0; i < configured.length; i++) {
+            if (configured[i].isFunction() && !js.isSelfContained(configured[i].getValue())) {
+                return names[i];
+            }
+        }
+        return null;
+    }
+
+    private static ScriptValue fork(ScriptValue sv, ScriptContext context) {
+        if (sv.isFunction()) { // functions are bound to the bindings they were created in
+            return Script.evalJsExpression(sv.getValue().toString(), context);
+        }
+        return sv.copy();
+    }
+
+}
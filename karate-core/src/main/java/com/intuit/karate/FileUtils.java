@@ -35,9 +35,35 @@ public class FileUtils {
     public static final String CLASSPATH_COLON = CLASSPATH + ":";
     public static final String FILE_COLON = "file:";
 
+    // parsed features are read-only, and are shared across threads with only the env swapped
+    // keyed by file path, an entry is replaced when the file has been modified since
+    private static final LruCache<String, CachedFeature> FEATURE_CACHE = new LruCache(256);
+    
+    private static class CachedFeature {
+        
+        final String path;
+        final long lastModified;
+        FeatureWrapper feature;
+        
+        CachedFeature(String path, long lastModified) {
+            this.path = path;
+            this.lastModified = lastModified;
+        }
+        
+    }
+    
+    private static volatile boolean featureCacheEnabled = true;
+
     private FileUtils() {
         // only static methods
     }
+    
+    public static void setFeatureCacheEnabled(boolean enabled) { // the ui edits features, so turns this off
+        featureCacheEnabled = enabled;
+        if (!enabled) {
+            FEATURE_CACHE.clear();
+        }
+    }
 
     public static final boolean isClassPath(String text) {
         return text.startsWith(CLASSPATH_COLON);
@@ -99,8 +125,7 @@ public class FileUtils {
             String contents = readFileAsString(fileName, prefix, context);
             return new ScriptValue(contents, text);
         } else if (isFeatureFile(text)) {
-            String contents = readFileAsString(fileName, prefix, context);
-            FeatureWrapper feature = FeatureWrapper.fromString(contents, context.env, text);
+            FeatureWrapper feature = readFeature(text, fileName, prefix, context);
             return new ScriptValue(feature, text);
         } else if (isYamlFile(text)) {
             String contents = readFileAsString(fileName, prefix, context);
@@ -112,6 +137,54 @@ public class FileUtils {
         }
     }
 
+    private static FeatureWrapper readFeature(String text, String fileName, PathPrefix prefix, ScriptContext context) {
+        CachedFeature key = featureCacheEnabled ? getFeatureCacheKey(fileName, prefix, context) : null;
+        if (key != null) {
+            CachedFeature cached = FEATURE_CACHE.get(key.path);
+            if (cached != null && cached.lastModified == key.lastModified && cached.feature.getPath().equals(text)) {
+                return cached.feature.withEnv(context.env);
+            }
+        }
+        String contents = readFileAsString(fileName, prefix, context);
+        if (key == null) {
+            return FeatureWrapper.fromString(contents, context.env, text);
+        }
+        // parsed without an env, so that the cached feature and its sections do not hold on to one
+        key.feature = FeatureWrapper.fromString(contents, null, text);
+        FEATURE_CACHE.put(key.path, key);
+        return key.feature.withEnv(context.env);
+    }
+
+    private static CachedFeature getFeatureCacheKey(String path, PathPrefix prefix, ScriptContext context) {
+        File file;
+        switch (prefix) {
+            case CLASSPATH:
+                URL url = context.env.fileClassLoader.getResource(path);
+                if (url == null) {
+                    return null;
+                }
+                if (!"file".equals(url.getProtocol())) { // e.g. within a jar, will never change
+                    return new CachedFeature(url.toString(), -1);
+                }
+                try {
+                    file = new File(url.toURI());
+                } catch (Exception e) {
+                    return null;
+                }
+                break;
+            case NONE:
+                file = new File(context.env.featureDir + File.separator + path);
+                break;
+            default:
+                file = new File(path);
+        }
+        long lastModified = file.lastModified();
+        if (lastModified == 0) { // does not exist or cannot be read
+            return null;
+        }
+        return new CachedFeature(file.getAbsolutePath(), lastModified);
+    }
+
     private static String readFileAsString(String path, PathPrefix prefix, ScriptContext context) {
         try {
             InputStream is = getFileStream(path, prefix, context);
@@ -0,0 +1,386 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.intuit.karate.cucumber.FeatureWrapper;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.spi.json.AbstractJsonProvider;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * json engine on top of the jackson streaming parser and generator, which
+ * avoids the intermediate strings and re-parsing that json-smart needs, and
+ * does a lot better on large payloads - enable with:
+ * -Dkarate.json.engine=com.intuit.karate.JacksonEngine
+ *
+ * parsing is as lenient as jackson allows (unquoted keys, single-quotes,
+ * comments) but unlike json-smart, unquoted string values and trailing commas
+ * are not supported - and pojo-s are serialized in jackson property order
+ *
+ * @author pthomas3
+ */
+public class JacksonEngine implements JsonEngine {
+
+    private static final JsonFactory FACTORY = new JsonFactory()
+            .enable(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonParser.Feature.ALLOW_COMMENTS)
+            .enable(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS)
+            .enable(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+            .enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
+
+    // only used for pojo-s, everything else goes through the streaming api
+    private static final ObjectMapper MAPPER = new ObjectMapper(FACTORY)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final JsonProvider jsonProvider = new StreamingJsonProvider(this);
+    private final MappingProvider mappingProvider = new JacksonMappingProvider(MAPPER);
+
+    private static class StreamingJsonProvider extends AbstractJsonProvider {
+
+        private final JacksonEngine engine;
+
+        StreamingJsonProvider(JacksonEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public Object parse(String json) throws InvalidJsonException {
+            return engine.parse(json);
+        }
+
+        @Override
+        public Object parse(InputStream is, String charset) throws InvalidJsonException {
+            try {
+                return engine.parse(new InputStreamReader(is, charset));
+            } catch (IOException e) {
+                throw new InvalidJsonException(e);
+            }
+        }
+
+        @Override
+        public String toJson(Object o) {
+            return engine.toJson(o);
+        }
+
+        @Override
+        public Object createArray() {
+            return new ArrayList();
+        }
+
+        @Override
+        public Object createMap() {
+            return new LinkedHashMap();
+        }
+
+    }
+
+    @Override
+    public Object parse(String json) {
+        try {
+            return read(FACTORY.createParser(json));
+        } catch (IOException e) {
+            throw new InvalidJsonException(e, json);
+        }
+    }
+
+    private Object parse(Reader reader) throws IOException {
+        try (Reader temp = reader) {
+            return read(FACTORY.createParser(temp));
+        }
+    }
+
+    @Override
+    public boolean forEachArrayItem(InputStream is, Predicate<Object> action) {
+        try (JsonParser parser = FACTORY.createParser(new InputStreamReader(is, "utf-8"))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return false;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (!action.test(read(parser, token))) {
+                    break;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    private static Object read(JsonParser parser) throws IOException {
+        try (JsonParser temp = parser) {
+            return read(temp, temp.nextToken());
+        }
+    }
+
+    private static Object read(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null) {
+            throw new JsonParseException(parser, "unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT:
+                Map<String, Object> map = new LinkedHashMap();
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    String key = parser.getCurrentName();
+                    map.put(key, read(parser, parser.nextToken()));
+                }
+                if (token != JsonToken.END_OBJECT) {
+                    throw new JsonParseException(parser, "unexpected token: " + token);
+                }
+                return map;
+            case START_ARRAY:
+                List list = new ArrayList();
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    list.add(read(parser, token));
+                }
+                return list;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue(); // Integer, Long or BigInteger
+            case VALUE_NUMBER_FLOAT:
+                // same as json-smart, only go for BigDecimal if a double may lose precision
+                if (parser.getTextLength() > 18) {
+                    return parser.getDecimalValue();
+                }
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException(parser, "unexpected token: " + token);
+        }
+    }
+
+    @Override
+    public String toJson(Object o) {
+        return write(o, null);
+    }
+
+    @Override
+    public String toPrettyJson(Object o) {
+        return write(o, new IndentingPrettyPrinter()) + '\n';
+    }
+
+    private static String write(Object o, PrettyPrinter pp) {
+        StringWriter sw = new StringWriter();
+        try (JsonGenerator gen = FACTORY.createGenerator(sw)) {
+            gen.setPrettyPrinter(pp);
+            // anti recursion, pretty-printing also flags back-references (like json-smart)
+            Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap());
+            write(o, gen, seen, pp == null);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return sw.toString();
+    }
+
+    private static void write(Object o, JsonGenerator gen, Set<Object> seen, boolean cyclesOnly) throws IOException {
+        if (o == null) {
+            gen.writeNull();
+        } else if (o instanceof String) {
+            gen.writeString((String) o);
+        } else if (o instanceof Boolean) {
+            gen.writeBoolean((Boolean) o);
+        } else if (o instanceof Integer || o instanceof Long || o instanceof Short || o instanceof Byte) {
+            gen.writeNumber(((Number) o).longValue());
+        } else if (o instanceof Double || o instanceof Float) {
+            gen.writeNumber(((Number) o).doubleValue());
+        } else if (o instanceof BigDecimal) {
+            gen.writeNumber((BigDecimal) o);
+        } else if (o instanceof BigInteger) {
+            gen.writeNumber((BigInteger) o);
+        } else if (o instanceof Map) {
+            JsEngine js = ScriptBindings.getJsEngine();
+            if (js.isFunction(o)) {
+                gen.writeString("#function");
+            } else if (js.isArray(o)) {
+                write(js.toList(o), gen, seen, cyclesOnly);
+            } else if (seen.add(o)) {
+                Map<Object, Object> map = (Map) o;
+                gen.writeStartObject();
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    gen.writeFieldName(String.valueOf(entry.getKey()));
+                    write(entry.getValue(), gen, seen, cyclesOnly);
+                }
+                gen.writeEndObject();
+                if (cyclesOnly) {
+                    seen.remove(o);
+                }
+            } else {
+                ref(gen, o);
+            }
+        } else if (o instanceof List) {
+            if (seen.add(o)) {
+                gen.writeStartArray();
+                for (Object item : (List) o) {
+                    write(item, gen, seen, cyclesOnly);
+                }
+                gen.writeEndArray();
+                if (cyclesOnly) {
+                    seen.remove(o);
+                }
+            } else {
+                ref(gen, o);
+            }
+        } else if (o instanceof Object[]) {
+            write(Arrays.asList((Object[]) o), gen, seen, cyclesOnly);
+        } else if (o instanceof FeatureWrapper) {
+            gen.writeString("#feature");
+        } else { // pojo
+            MAPPER.writeValue(gen, o);
+        }
+    }
+
+    private static void ref(JsonGenerator gen, Object o) throws IOException {
+        gen.writeString("#ref:" + o.getClass().getName());
+    }
+
+    /**
+     * same layout as the json-smart engine, so that logs and reports look the
+     * same whichever engine is in use
+     */
+    private static class IndentingPrettyPrinter implements PrettyPrinter {
+
+        private int depth;
+
+        private void newLine(JsonGenerator gen) throws IOException {
+            gen.writeRaw('\n');
+            for (int i = 0; i < depth; i++) {
+                gen.writeRaw("  ");
+            }
+        }
+
+        @Override
+        public void writeRootValueSeparator(JsonGenerator gen) throws IOException {
+            // only one root value is ever written
+        }
+
+        @Override
+        public void writeStartObject(JsonGenerator gen) throws IOException {
+            gen.writeRaw('{');
+            depth++;
+        }
+
+        @Override
+        public void beforeObjectEntries(JsonGenerator gen) throws IOException {
+            newLine(gen);
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator gen) throws IOException {
+            gen.writeRaw(": ");
+        }
+
+        @Override
+        public void writeObjectEntrySeparator(JsonGenerator gen) throws IOException {
+            gen.writeRaw(',');
+            newLine(gen);
+        }
+
+        @Override
+        public void writeEndObject(JsonGenerator gen, int count) throws IOException {
+            depth--;
+            newLine(gen);
+            gen.writeRaw('}');
+        }
+
+        @Override
+        public void writeStartArray(JsonGenerator gen) throws IOException {
+            gen.writeRaw('[');
+            depth++;
+        }
+
+        @Override
+        public void beforeArrayValues(JsonGenerator gen) throws IOException {
+            newLine(gen);
+        }
+
+        @Override
+        public void writeArrayValueSeparator(JsonGenerator gen) throws IOException {
+            gen.writeRaw(',');
+            newLine(gen);
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator gen, int count) throws IOException {
+            depth--;
+            newLine(gen);
+            gen.writeRaw(']');
+        }
+
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> clazz) {
+        try {
+            return MAPPER.readValue(json, clazz);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public JsonProvider jsonProvider() {
+        return jsonProvider;
+    }
+
+    @Override
+    public MappingProvider mappingProvider() {
+        return mappingProvider;
+    }
+
+}
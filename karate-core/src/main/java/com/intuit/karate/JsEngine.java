@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.List;
+import javax.script.Bindings;
+
+/**
+ * everything karate needs from a javascript engine, the default is nashorn
+ * and an alternative can be plugged in via the 'karate.js.engine' system property
+ * (the fully qualified name of a class with a no-arg constructor)
+ *
+ * engines have to surface js objects, arrays and functions as java Maps
+ * so that the rest of karate can treat them like json
+ *
+ * @author pthomas3
+ */
+public interface JsEngine {
+
+    /**
+     * @param exp the javascript expression or function body
+     * @param bindings the variables in scope, or null for the engine defaults
+     */
+    Object eval(String exp, Bindings bindings) throws Exception;
+
+    boolean isFunction(Object value);
+
+    boolean isArray(Object value);
+
+    boolean isObject(Object value);
+
+    List toList(Object array);
+
+    /**
+     * @param arg can be null, in which case the function is called with no arguments
+     * @param bridge the 'karate' object of the calling context
+     */
+    Object invokeFunction(Object function, Object arg, ScriptBridge bridge);
+
+    /**
+     * @return true if the function refers to nothing but its own parameters and
+     * locals, the js built-ins and 'karate' / 'read' - which means that it can be
+     * re-created from its source in other bindings and still behave the same
+     */
+    boolean isSelfContained(Object function);
+
+}
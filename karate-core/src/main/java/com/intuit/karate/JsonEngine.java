@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * everything karate needs to parse and write json, the default is json-smart
+ * and an alternative can be plugged in via the 'karate.json.engine' system property
+ * (the fully qualified name of a class with a no-arg constructor)
+ *
+ * engines have to parse json into (ordered) Maps, Lists and primitives and
+ * the jsonpath providers returned have to work on the same structures
+ *
+ * @author pthomas3
+ */
+public interface JsonEngine {
+
+    Object parse(String json);
+
+    /**
+     * @param o maps, lists, primitives and also js objects or pojo-s
+     */
+    String toJson(Object o);
+
+    /**
+     * two-space indent, each map entry or list item on its own line, and a
+     * back-reference is written as "#ref:class-name" instead of recursing
+     */
+    String toPrettyJson(Object o);
+
+    <T> T fromJson(String json, Class<T> clazz);
+
+    /**
+     * for documents too big to parse in one go, reads a (utf-8) top-level
+     * json array one item at a time, only the current item is held in memory
+     * 
+     * @param action called with each item in turn, return false to stop reading
+     * @return false if the document is not a json array (action never called)
+     * @throws com.jayway.jsonpath.InvalidJsonException if the array is not well-formed or cannot be read
+     */
+    boolean forEachArrayItem(InputStream is, Predicate<Object> action);
+
+    JsonProvider jsonProvider();
+
+    MappingProvider mappingProvider();
+
+}
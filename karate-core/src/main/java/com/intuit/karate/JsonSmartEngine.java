@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.cucumber.FeatureWrapper;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JsonSmartMappingProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import net.minidev.json.JSONStyle;
+import net.minidev.json.JSONValue;
+import net.minidev.json.reader.JsonWriter;
+import net.minidev.json.reader.JsonWriterI;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class JsonSmartEngine implements JsonEngine {
+
+    private static class NashornObjectJsonWriter implements JsonWriterI<ScriptObjectMirror> {
+
+        @Override
+        public <E extends ScriptObjectMirror> void writeJSONString(E value, Appendable out, JSONStyle compression) throws IOException {
+            if (value.isArray()) {
+                Object[] array = value.values().toArray();
+                JsonWriter.arrayWriter.writeJSONString(array, out, compression);
+            } else if (value.isFunction()) {
+                JsonWriter.toStringWriter.writeJSONString("\"#function\"", out, compression);
+            } else { // JSON
+                JsonWriter.JSONMapWriter.writeJSONString(value, out, compression);
+            }
+        }
+
+    }
+
+    private static class FeatureWrapperJsonWriter implements JsonWriterI<FeatureWrapper> {
+
+        @Override
+        public <E extends FeatureWrapper> void writeJSONString(E value, Appendable out, JSONStyle compression) throws IOException {
+            JsonWriter.toStringWriter.writeJSONString("\"#feature\"", out, compression);
+        }
+
+    }
+
+    static {
+        // prevent things like the karate script bridge getting serialized (especially in the javafx ui)
+        JSONValue.registerWriter(ScriptObjectMirror.class, new NashornObjectJsonWriter());
+        JSONValue.registerWriter(FeatureWrapper.class, new FeatureWrapperJsonWriter());
+    }
+
+    private final JsonProvider jsonProvider = new JsonSmartJsonProvider();
+    private final MappingProvider mappingProvider = new JsonSmartMappingProvider();
+
+    @Override
+    public Object parse(String json) {
+        return jsonProvider.parse(json);
+    }
+
+    @Override
+    public String toJson(Object o) {
+        return JSONValue.toJSONString(o);
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> clazz) {
+        return JSONValue.parse(json, clazz);
+    }
+
+    /**
+     * json-smart has no pull-parser, so the text of each item is cut out by
+     * keeping track of nesting and quotes, and then parsed on its own
+     */
+    @Override
+    public boolean forEachArrayItem(InputStream is, Predicate<Object> action) {
+        try (Reader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            int c;
+            do {
+                c = reader.read();
+            } while (c != -1 && Character.isWhitespace(c));
+            if (c != '[') {
+                return false;
+            }
+            StringBuilder sb = new StringBuilder();
+            int depth = 0;
+            char quote = 0;
+            boolean escaped = false;
+            while ((c = reader.read()) != -1) {
+                char ch = (char) c;
+                if (quote != 0) { // within a string
+                    if (escaped) {
+                        escaped = false;
+                    } else if (ch == '\\') {
+                        escaped = true;
+                    } else if (ch == quote) {
+                        quote = 0;
+                    }
+                } else if (depth == 0 && (ch == ',' || ch == ']')) { // end of item
+                    String item = sb.toString().trim();
+                    sb.setLength(0);
+                    if (!item.isEmpty() && !action.test(parse(item))) {
+                        return true;
+                    }
+                    if (ch == ']') {
+                        return true;
+                    }
+                    continue;
+                } else if (ch == '"' || ch == '\'') {
+                    quote = ch;
+                } else if (ch == '{' || ch == '[') {
+                    depth++;
+                } else if (ch == '}' || ch == ']') {
+                    depth--;
+                }
+                sb.append(ch);
+            }
+            throw new InvalidJsonException("unexpected end of json array");
+        } catch (IOException e) {
+            throw new InvalidJsonException(e);
+        }
+    }
+
+    @Override
+    public JsonProvider jsonProvider() {
+        return jsonProvider;
+    }
+
+    @Override
+    public MappingProvider mappingProvider() {
+        return mappingProvider;
+    }
+
+    @Override
+    public String toPrettyJson(Object o) {
+        StringBuilder sb = new StringBuilder();
+        // anti recursion / back-references
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap());
+        recursePretty(o, sb, 0, seen);
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    private static void pad(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append(' ').append(' ');
+        }
+    }
+
+    private static void ref(StringBuilder sb, Object o) {
+        sb.append("\"#ref:").append(o.getClass().getName()).append('"');
+    }
+
+    private static void recursePretty(Object o, StringBuilder sb, int depth, Set<Object> seen) {
+        if (o == null) {
+            sb.append("null");
+        } else if (o instanceof Map) {
+            if (seen.add(o)) {
+                sb.append('{').append('\n');
+                Map<String, Object> map = (Map<String, Object>) o;
+                Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, Object> entry = iterator.next();
+                    String key = entry.getKey();
+                    pad(sb, depth + 1);
+                    sb.append('"').append(JSONValue.escape(key, JSONStyle.LT_COMPRESS)).append('"');
+                    sb.append(':').append(' ');
+                    recursePretty(entry.getValue(), sb, depth + 1, seen);
+                    if (iterator.hasNext()) {
+                        sb.append(',');
+                    }
+                    sb.append('\n');
+                }
+                pad(sb, depth);
+                sb.append('}');
+            } else {
+                ref(sb, o);
+            }
+        } else if (o instanceof List) {
+            List list = (List) o;
+            Iterator iterator = list.iterator();
+            if (seen.add(o)) {
+                sb.append('[').append('\n');
+                while (iterator.hasNext()) {
+                    Object child = iterator.next();
+                    pad(sb, depth + 1);
+                    recursePretty(child, sb, depth + 1, seen);
+                    if (iterator.hasNext()) {
+                        sb.append(',');
+                    }
+                    sb.append('\n');
+                }
+                pad(sb, depth);
+                sb.append(']');
+            } else {
+                ref(sb, o);
+            }
+        } else if (o instanceof String) {
+            String value = (String) o;
+            sb.append('"').append(JSONValue.escape(value, JSONStyle.LT_COMPRESS)).append('"');
+        } else {
+            sb.append(o);
+        }
+    }
+
+}
@@ -23,32 +23,19 @@
  */
 package com.intuit.karate;
 
-import com.intuit.karate.cucumber.FeatureWrapper;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.spi.json.JsonProvider;
-import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
-import com.jayway.jsonpath.spi.mapper.JsonSmartMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.IdentityHashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import jdk.nashorn.api.scripting.ScriptObjectMirror;
-import net.minidev.json.JSONObject;
-import net.minidev.json.JSONStyle;
-import net.minidev.json.JSONValue;
-import net.minidev.json.reader.JsonWriter;
-import net.minidev.json.reader.JsonWriterI;
 import org.yaml.snakeyaml.Yaml;
 
 /**
@@ -61,40 +48,46 @@ public class JsonUtils {
         // only static methods
     }
 
-    private static class NashornObjectJsonWriter implements JsonWriterI<ScriptObjectMirror> {
-
-        @Override
-        public <E extends ScriptObjectMirror> void writeJSONString(E value, Appendable out, JSONStyle compression) throws IOException {
-            if (value.isArray()) {
-                Object[] array = value.values().toArray();
-                JsonWriter.arrayWriter.writeJSONString(array, out, compression);
-            } else if (value.isFunction()) {
-                JsonWriter.toStringWriter.writeJSONString("\"#function\"", out, compression);
-            } else { // JSON
-                JsonWriter.JSONMapWriter.writeJSONString(value, out, compression);
-            }
+    // all threads will share this, and jsonpath will use the engine providers by default
+    private static final JsonEngine JSON_ENGINE = createJsonEngine();
+
+    private static JsonEngine createJsonEngine() {
+        String className = System.getProperty(ScriptBindings.KARATE_JSON_ENGINE);
+        if (className == null) {
+            return new JsonSmartEngine();
+        }
+        try {
+            return (JsonEngine) Class.forName(className).newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("failed to create json engine: " + className, e);
         }
+    }
 
+    public static JsonEngine getJsonEngine() {
+        return JSON_ENGINE;
     }
 
-    private static class FeatureWrapperJsonWriter implements JsonWriterI<FeatureWrapper> {
+    // compiled paths are immutable and can be shared across threads
+    private static final LruCache<String, JsonPath> PATH_CACHE = new LruCache(1000);
 
-        @Override
-        public <E extends FeatureWrapper> void writeJSONString(E value, Appendable out, JSONStyle compression) throws IOException {
-            JsonWriter.toStringWriter.writeJSONString("\"#feature\"", out, compression);
-        }
+    public static LruCache<String, JsonPath> getPathCache() {
+        return PATH_CACHE;
+    }
 
+    /**
+     * the same few paths are evaluated over and over again (especially in
+     * match and set) so never tokenize and compile a path more than once
+     */
+    public static JsonPath compile(String path) {
+        return PATH_CACHE.get(path, p -> JsonPath.compile(p));
     }
 
-    static { 
-        // prevent things like the karate script bridge getting serialized (especially in the javafx ui)
-        JSONValue.registerWriter(ScriptObjectMirror.class, new NashornObjectJsonWriter());
-        JSONValue.registerWriter(FeatureWrapper.class, new FeatureWrapperJsonWriter());
-        // ensure that even if jackson (databind?) is on the classpath, don't switch provider
+    static {
+        // jsonpath would switch provider if jackson (databind?) is on the classpath, always use the engine
         Configuration.setDefaults(new Configuration.Defaults() {
 
-            private final JsonProvider jsonProvider = new JsonSmartJsonProvider();
-            private final MappingProvider mappingProvider = new JsonSmartMappingProvider();
+            private final JsonProvider jsonProvider = JSON_ENGINE.jsonProvider();
+            private final MappingProvider mappingProvider = JSON_ENGINE.mappingProvider();
 
             @Override
             public JsonProvider jsonProvider() {
@@ -123,7 +116,37 @@ public class JsonUtils {
     }
 
     public static String toJson(Object o) {
-        return JSONValue.toJSONString(o);
+        return JSON_ENGINE.toJson(o);
+    }
+
+    /**
+     * structural copy of a tree of maps and lists (which is what json is), the
+     * leaves (strings, numbers, booleans, or anything that is not json such as
+     * functions) are immutable or cannot be copied - and are shared
+     */
+    public static Object deepCopy(Object o) {
+        if (o instanceof Map) {
+            JsEngine js = ScriptBindings.getJsEngine();
+            if (js.isFunction(o)) {
+                return o;
+            }
+            if (js.isArray(o)) {
+                return deepCopy(js.toList(o));
+            }
+            Map<String, Object> map = (Map) o;
+            Map<String, Object> copy = new LinkedHashMap(map.size());
+            map.forEach((k, v) -> copy.put(k, deepCopy(v)));
+            return copy;
+        }
+        if (o instanceof List) {
+            List list = (List) o;
+            List copy = new ArrayList(list.size());
+            for (Object item : list) {
+                copy.add(deepCopy(item));
+            }
+            return copy;
+        }
+        return o;
     }
 
     public static DocumentContext toJsonDoc(Object o) {
@@ -133,7 +156,7 @@ public class JsonUtils {
     public static Object fromJson(String s, String className) {
         try {
             Class clazz = Class.forName(className);
-            return JSONValue.parse(s, clazz);
+            return JSON_ENGINE.fromJson(s, clazz);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -144,75 +167,7 @@ public class JsonUtils {
     }
 
     public static String toPrettyJsonString(DocumentContext doc) {
-        Object o = doc.read("$");
-        StringBuilder sb = new StringBuilder();
-        // anti recursion / back-references
-        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap());
-        recursePretty(o, sb, 0, seen);
-        sb.append('\n');
-        return sb.toString();
-    }
-
-    private static void pad(StringBuilder sb, int depth) {
-        for (int i = 0; i < depth; i++) {
-            sb.append(' ').append(' ');
-        }
-    }
-
-    private static void ref(StringBuilder sb, Object o) {
-        sb.append("\"#ref:").append(o.getClass().getName()).append('"');
-    }
-
-    private static void recursePretty(Object o, StringBuilder sb, int depth, Set<Object> seen) {
-        if (o == null) {
-            sb.append("null");
-        } else if (o instanceof Map) {
-            if (seen.add(o)) {
-                sb.append('{').append('\n');
-                Map<String, Object> map = (Map<String, Object>) o;
-                Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Object> entry = iterator.next();
-                    String key = entry.getKey();
-                    pad(sb, depth + 1);
-                    sb.append('"').append(JSONValue.escape(key, JSONStyle.LT_COMPRESS)).append('"');
-                    sb.append(':').append(' ');
-                    recursePretty(entry.getValue(), sb, depth + 1, seen);
-                    if (iterator.hasNext()) {
-                        sb.append(',');
-                    }
-                    sb.append('\n');
-                }
-                pad(sb, depth);
-                sb.append('}');
-            } else {
-                ref(sb, o);
-            }
-        } else if (o instanceof List) {
-            List list = (List) o;
-            Iterator iterator = list.iterator();
-            if (seen.add(o)) {
-                sb.append('[').append('\n');
-                while (iterator.hasNext()) {
-                    Object child = iterator.next();
-                    pad(sb, depth + 1);
-                    recursePretty(child, sb, depth + 1, seen);
-                    if (iterator.hasNext()) {
-                        sb.append(',');
-                    }
-                    sb.append('\n');
-                }
-                pad(sb, depth);
-                sb.append(']');
-            } else {
-                ref(sb, o);
-            }
-        } else if (o instanceof String) {
-            String value = (String) o;
-            sb.append('"').append(JSONValue.escape(value, JSONStyle.LT_COMPRESS)).append('"');
-        } else {
-            sb.append(o);
-        }
+        return JSON_ENGINE.toPrettyJson(doc.read("$"));
     }
 
     public static StringUtils.Pair getParentAndLeafPath(String path) {
@@ -267,7 +222,7 @@ public class JsonUtils {
                 }
             }
             try {
-                list = doc.read(listPath);
+                list = doc.read(compile(listPath));
                 if (index == -1) {
                     index = list.size();
                 }
@@ -284,12 +239,12 @@ public class JsonUtils {
                 if (!remove) {
                     list = new ArrayList();
                     list.add(value);
-                    doc.put(left, right, list);
+                    doc.put(compile(left), right, list);
                 }
             }
         } else {
             if (remove) {
-                doc.delete(path);
+                doc.delete(compile(path));
             } else {
                 if (right.startsWith("[")) {
                     right = right.substring(2, right.length() - 2);
@@ -297,7 +252,7 @@ public class JsonUtils {
                 if (!pathExists(doc, left)) {
                     createParents(doc, left);
                 }
-                doc.put(left, right, value);
+                doc.put(compile(left), right, value);
             }
         }
     }
@@ -308,7 +263,7 @@ public class JsonUtils {
         String right = pathLeaf.right;
         if ("".equals(left)) { // if root
             if (!"$".equals(right)) { // special case, root is array, typically "$[0]"
-                doc.add("$", new LinkedHashMap()); // TODO we assume that second level is always object (not array of arrays)
+                doc.add(compile("$"), new LinkedHashMap()); // TODO we assume that second level is always object (not array of arrays)
             }
             return;
         }
@@ -325,12 +280,12 @@ public class JsonUtils {
         } else {
             empty = new LinkedHashMap();
         }
-        doc.put(left, right, empty);
+        doc.put(compile(left), right, empty);
     }
 
     public static boolean pathExists(DocumentContext doc, String path) {
         try {
-            return doc.read(path) != null;
+            return doc.read(compile(path)) != null;
         } catch (PathNotFoundException pnfe) {
             return false;
         }
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import com.intuit.karate.validator.RegexValidator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * an expected value such as '#string', '##regex [a-z]+' or '#[5] #number' parsed
+ * once into its parts, so that matching the same schema against many values
+ * (think match each, or the same response shape checked over and over) does
+ * not have to re-interpret the string or re-compile a regex every time
+ *
+ * instances are immutable and cached by text, so they are shared across threads
+ *
+ * @author pthomas3
+ */
+public class MatchMacro {
+
+    public static enum Type {
+        EMBEDDED, // '#(foo)' '#(^foo)'
+        REGEX, // '#regex [a-z]+'
+        ARRAY, // '#[]' '#[5] #string' '#[_ > 0]'
+        VALIDATOR // '#string' '#? _ > 0' '#number? _ > 0'
+    }
+
+    private static final int CACHE_SIZE = 1000;
+
+    // looked up for every value matched, also by the workers of a parallel match each
+    // so no lock on reads, and the (rarely hit) size limit is handled by clearing it all
+    private static final Map<String, MatchMacro> CACHE = new ConcurrentHashMap();
+
+    public static MatchMacro get(String text) {
+        MatchMacro macro = CACHE.get(text);
+        if (macro == null) {
+            macro = new MatchMacro(text);
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(text, macro);
+        }
+        return macro;
+    }
+
+    final String text;
+    final boolean optional;
+    final String body; // without the leading '#' or '##'
+    final Type type;
+
+    // EMBEDDED, null match type unless a 'contains' form
+    final String embeddedExpression;
+    final MatchType embeddedMatchType;
+
+    // REGEX
+    final RegexValidator regexValidator;
+
+    // ARRAY, all are null if absent, a null each match type means (not) equals
+    final String arrayLengthExpression;
+    final Integer arrayLength;
+    final String arrayEachExpression;
+    final MatchType arrayEachMatchType;
+
+    // VALIDATOR
+    final String validatorName;
+    final String predicate;
+
+    private MatchMacro(String text) {
+        this.text = text;
+        optional = Script.isOptionalMacro(text);
+        body = text.substring(optional ? 2 : 1);
+        String embedded = null;
+        MatchType embeddedType = null;
+        RegexValidator regex = null;
+        String lengthExpression = null;
+        Integer length = null;
+        String eachExpression = null;
+        MatchType eachType = null;
+        String name = null;
+        String pred = null;
+        if (Script.isWithinParentheses(body)) {
+            type = Type.EMBEDDED;
+            embedded = Script.stripParentheses(body);
+            if (Script.isContainsMacro(embedded)) {
+                if (Script.isContainsOnlyMacro(embedded)) {
+                    embeddedType = MatchType.CONTAINS_ONLY;
+                    embedded = embedded.substring(2);
+                } else if (Script.isContainsAnyMacro(embedded)) {
+                    embeddedType = MatchType.CONTAINS_ANY;
+                    embedded = embedded.substring(2);
+                } else {
+                    embeddedType = MatchType.CONTAINS;
+                    embedded = embedded.substring(1);
+                }
+            } else if (Script.isNotContainsMacro(embedded)) {
+                embeddedType = MatchType.NOT_CONTAINS;
+                embedded = embedded.substring(2);
+            }
+        } else if (body.startsWith("regex")) {
+            type = Type.REGEX;
+            regex = new RegexValidator(body.substring(5).trim());
+        } else if (body.startsWith("[") && body.indexOf(']') > 0) {
+            type = Type.ARRAY;
+            int endBracketPos = body.indexOf(']');
+            if (endBracketPos > 1) {
+                String bracketContents = body.substring(1, endBracketPos);
+                if (bracketContents.indexOf('_') != -1) { // #[_ < 5]
+                    lengthExpression = bracketContents;
+                } else { // #[5] | #[$.foo]
+                    try {
+                        length = Integer.valueOf(bracketContents.trim());
+                    } catch (NumberFormatException e) {
+                        lengthExpression = bracketContents;
+                    }
+                }
+            }
+            if (body.length() > endBracketPos + 1) {
+                String expression = StringUtils.trimToNull(body.substring(endBracketPos + 1));
+                if (expression != null) {
+                    if (expression.startsWith("?")) {
+                        expression = "'#" + expression + "'";
+                    } else if (expression.startsWith("#")) {
+                        expression = "'" + expression + "'";
+                    } else {
+                        if (Script.isWithinParentheses(expression)) {
+                            expression = Script.stripParentheses(expression);
+                        }
+                        if (Script.isContainsMacro(expression)) {
+                            if (Script.isContainsOnlyMacro(expression)) {
+                                eachType = MatchType.EACH_CONTAINS_ONLY;
+                                expression = expression.substring(2);
+                            } else if (Script.isContainsAnyMacro(expression)) {
+                                eachType = MatchType.EACH_CONTAINS_ANY;
+                                expression = expression.substring(2);
+                            } else {
+                                eachType = MatchType.EACH_CONTAINS;
+                                expression = expression.substring(1);
+                            }
+                        } else if (Script.isNotContainsMacro(expression)) {
+                            eachType = MatchType.EACH_NOT_CONTAINS;
+                            expression = expression.substring(2);
+                        }
+                    }
+                    eachExpression = expression;
+                }
+            }
+        } else {
+            type = Type.VALIDATOR;
+            int questionPos = body.indexOf('?');
+            if (questionPos != -1) {
+                name = body.substring(0, questionPos);
+                pred = body.substring(questionPos + 1);
+            } else {
+                name = body;
+            }
+            name = StringUtils.trimToNull(name);
+        }
+        embeddedExpression = embedded;
+        embeddedMatchType = embeddedType;
+        regexValidator = regex;
+        arrayLengthExpression = lengthExpression;
+        arrayLength = length;
+        arrayEachExpression = eachExpression;
+        arrayEachMatchType = eachType;
+        validatorName = name;
+        predicate = pred;
+    }
+
+    public boolean isOptional() {
+        return optional;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
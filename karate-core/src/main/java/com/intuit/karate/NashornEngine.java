@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class NashornEngine implements JsEngine {
+
+    // all threads will share this ! thread isolation is via Bindings (ScriptBindings)
+    private static final ScriptEngine NASHORN = new ScriptEngineManager(null).getEngineByName("nashorn");
+
+    // compiled scripts can be evaluated against any Bindings, so they can also be shared
+    private static final LruCache<String, CompiledScript> SCRIPT_CACHE = new LruCache(1000);
+
+    // names that resolve the same in any bindings, the nashorn globals and what karate adds
+    private static Set<String> globalNames;
+
+    public static LruCache<String, CompiledScript> getScriptCache() {
+        return SCRIPT_CACHE;
+    }
+
+    private static CompiledScript compile(String exp) throws ScriptException {
+        CompiledScript script = SCRIPT_CACHE.get(exp);
+        if (script == null) {
+            script = ((Compilable) NASHORN).compile(exp);
+            SCRIPT_CACHE.put(exp, script);
+        }
+        return script;
+    }
+
+    @Override
+    public Object eval(String exp, Bindings bindings) throws Exception {
+        CompiledScript script = compile(exp);
+        return bindings == null ? script.eval() : script.eval(bindings);
+    }
+
+    @Override
+    public boolean isFunction(Object value) {
+        return value instanceof ScriptObjectMirror && ((ScriptObjectMirror) value).isFunction();
+    }
+
+    @Override
+    public boolean isArray(Object value) {
+        return value instanceof ScriptObjectMirror && ((ScriptObjectMirror) value).isArray();
+    }
+
+    @Override
+    public boolean isObject(Object value) {
+        return value instanceof ScriptObjectMirror;
+    }
+
+    @Override
+    public List toList(Object array) {
+        return new ArrayList(((ScriptObjectMirror) array).values());
+    }
+
+    private static synchronized Set<String> getGlobalNames() throws ScriptException {
+        if (globalNames == null) {
+            Set<String> names = new HashSet();
+            names.addAll((Collection) ((ScriptObjectMirror) NASHORN.eval("Object.getOwnPropertyNames(this)", new SimpleBindings())).values());
+            names.add(ScriptBindings.KARATE);
+            names.add(ScriptBindings.READ);
+            globalNames = names;
+        }
+        return globalNames;
+    }
+
+    @Override
+    public boolean isSelfContained(Object function) {
+        try {
+            Bindings bindings = new SimpleBindings();
+            bindings.put("source", "(" + function + ")");
+            // the json form of the syntax tree, nashorn has no public parser api on java 8
+            String ast = (String) NASHORN.eval("Java.type('jdk.nashorn.api.scripting.ScriptUtils').parse(source, 'function', false)", bindings);
+            Set<String> free = new HashSet();
+            collectFreeNames(JsonUtils.getJsonEngine().parse(ast), new ArrayList(), free);
+            free.removeAll(getGlobalNames());
+            return free.isEmpty();
+        } catch (Exception e) { // e.g. native code
+            return false;
+        }
+    }
+
+    private static void collectFreeNames(Object node, List<Set<String>> scopes, Set<String> free) {
+        if (node instanceof List) {
+            for (Object child : (List) node) {
+                collectFreeNames(child, scopes, free);
+            }
+            return;
+        }
+        if (!(node instanceof Map)) { // literal values, and property and label names
+            return;
+        }
+        Map<String, Object> map = (Map) node;
+        Object type = map.get("type");
+        if ("Identifier".equals(type)) {
+            String name = (String) map.get("name");
+            if (scopes.stream().noneMatch(scope -> scope.contains(name))) {
+                free.add(name);
+            }
+        } else if ("FunctionExpression".equals(type) || "FunctionDeclaration".equals(type)) {
+            Set<String> scope = new HashSet();
+            scope.add("arguments");
+            if (map.get("id") != null) { // also covers a named function expression calling itself
+                scope.add((String) ((Map) map.get("id")).get("name"));
+            }
+            for (Object param : (List) map.get("params")) {
+                scope.add((String) ((Map) param).get("name"));
+            }
+            collectDeclaredNames(map.get("body"), scope);
+            scopes.add(scope);
+            collectFreeNames(map.get("defaults"), scopes, free);
+            collectFreeNames(map.get("body"), scopes, free);
+            scopes.remove(scopes.size() - 1);
+        } else if ("CatchClause".equals(type)) {
+            Set<String> scope = new HashSet();
+            scope.add((String) ((Map) map.get("param")).get("name"));
+            scopes.add(scope);
+            collectFreeNames(map.get("guard"), scopes, free);
+            collectFreeNames(map.get("body"), scopes, free);
+            scopes.remove(scopes.size() - 1);
+        } else if ("MemberExpression".equals(type) && !Boolean.TRUE.equals(map.get("computed"))) {
+            collectFreeNames(map.get("object"), scopes, free);
+        } else if (map.containsKey("key") && map.containsKey("kind")) { // object literal property
+            collectFreeNames(map.get("value"), scopes, free);
+        } else {
+            for (Object child : map.values()) {
+                collectFreeNames(child, scopes, free);
+            }
+        }
+    }
+
+    // var and function declarations are hoisted, so they are visible in the whole function
+    private static void collectDeclaredNames(Object node, Set<String> scope) {
+        if (node instanceof List) {
+            for (Object child : (List) node) {
+                collectDeclaredNames(child, scope);
+            }
+            return;
+        }
+        if (!(node instanceof Map)) {
+            return;
+        }
+        Map<String, Object> map = (Map) node;
+        Object type = map.get("type");
+        if ("VariableDeclarator".equals(type) || "FunctionDeclaration".equals(type)) {
+            scope.add((String) ((Map) map.get("id")).get("name"));
+        }
+        if ("FunctionExpression".equals(type) || "FunctionDeclaration".equals(type)) {
+            return; // has a scope of its own
+        }
+        for (Object child : map.values()) {
+            collectDeclaredNames(child, scope);
+        }
+    }
+
+    @Override
+    public Object invokeFunction(Object function, Object arg, ScriptBridge bridge) {
+        ScriptObjectMirror som = (ScriptObjectMirror) function;
+        // injects the 'karate' variable into the js function body
+        // also ensure that things like 'karate.get' operate on the latest variable state
+        som.setMember(ScriptBindings.KARATE, bridge);
+        if (arg != null) {
+            return som.call(som, arg);
+        } else {
+            return som.call(som);
+        }
+    }
+
+}
@@ -28,26 +28,30 @@ import static com.intuit.karate.ScriptValue.Type.*;
 import com.intuit.karate.cucumber.CucumberUtils;
 import com.intuit.karate.cucumber.FeatureWrapper;
 import com.intuit.karate.validator.ArrayValidator;
-import com.intuit.karate.validator.RegexValidator;
 import com.intuit.karate.validator.ValidationResult;
 import com.intuit.karate.validator.Validator;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
@@ -171,18 +175,21 @@ public class Script {
     }
 
     private static ScriptValue callWithCache(String text, String arg, ScriptContext context, boolean reuseParentConfig) {
-        CallResult result = context.env.callCache.get(text);
-        if (result != null) {
-            context.logger.debug("callonce cache hit for: {}", text);
-            if (reuseParentConfig) { // re-apply config that may have been lost when we switched scenarios within a feature
-                context.configure(result.config);
+        // scenarios of the same feature can run in parallel, and the call has to happen only once
+        synchronized (context.env.callCache) {
+            CallResult result = context.env.callCache.get(text);
+            if (result != null) {
+                context.logger.debug("callonce cache hit for: {}", text);
+                if (reuseParentConfig) { // re-apply config that may have been lost when we switched scenarios within a feature
+                    context.configure(result.config);
+                }
+                return result.value;
             }
-            return result.value;
+            ScriptValue resultValue = call(text, arg, context, reuseParentConfig);
+            context.env.callCache.put(text, resultValue, context.config);
+            context.logger.debug("cached callonce: {}", text);
+            return resultValue;
         }
-        ScriptValue resultValue = call(text, arg, context, reuseParentConfig);
-        context.env.callCache.put(text, resultValue, context.config);
-        context.logger.debug("cached callonce: {}", text);
-        return resultValue;
     }
 
     public static ScriptValue getIfVariableReference(String text, ScriptContext context) {
@@ -346,15 +353,15 @@ public class Script {
         ScriptValue value = getValuebyName(name, context);
         if (value.isJsonLike()) {
             DocumentContext jsonDoc = value.getAsJsonDocument();
-            return new ScriptValue(jsonDoc.read(exp));
+            return new ScriptValue(jsonDoc.read(JsonUtils.compile(exp)));
         } else if (value.isXml()) {
             Document xml = value.getValue(Document.class);
             DocumentContext xmlDoc = XmlUtils.toJsonDoc(xml);
-            return new ScriptValue(xmlDoc.read(exp));
+            return new ScriptValue(xmlDoc.read(JsonUtils.compile(exp)));
         } else {
             String str = value.getAsString();
             DocumentContext strDoc = JsonPath.parse(str);
-            return new ScriptValue(strDoc.read(exp));
+            return new ScriptValue(strDoc.read(JsonUtils.compile(exp)));
         }
     }
 
@@ -409,14 +416,14 @@ public class Script {
                     ScriptValue sv = evalJsExpression(value.substring(optional ? 2 : 1), context);
                     if (optional) {
                         if (forMatch || sv.isNull()) {
-                            root.delete(path);
+                            root.delete(JsonUtils.compile(path));
                         } else if (!sv.isJsonLike()) {
                             // only substitute primitives ! 
                             // preserve optional JSON chunk schema-like references as-is, they are needed for future match attempts
-                            root.set(path, sv.getValue());
+                            root.set(JsonUtils.compile(path), sv.getValue());
                         }
                     } else {
-                        root.set(path, sv.getValue());
+                        root.set(JsonUtils.compile(path), sv.getValue());
                     }
                 } catch (Exception e) {
                     if (context.logger.isTraceEnabled()) {
@@ -667,8 +674,12 @@ public class Script {
 
     public static AssertionResult matchScriptValue(MatchType matchType, ScriptValue actual, String path, String expected, ScriptContext context) {
         switch (actual.getType()) {
-            case STRING:
             case INPUT_STREAM:
+                if (isEach(matchType) && "$".equals(path)) {
+                    return matchEachInStream(matchType, actual, expected, context);
+                }
+            // fall through, anything else on a stream reads it as a string
+            case STRING:
                 return matchString(matchType, actual, expected, path, context);
             case XML:
                 if ("$".equals(path)) {
@@ -703,7 +714,7 @@ public class Script {
         return text.startsWith("##");
     }
 
-    private static String stripParentheses(String s) {
+    protected static String stripParentheses(String s) {
         return StringUtils.trimToEmpty(s.substring(1, s.length() - 1));
     }
 
@@ -718,57 +729,34 @@ public class Script {
                 }
             }
         } else if (isMacro(expected)) {
-            String macroExpression;
-            if (isOptionalMacro(expected)) {              
-                macroExpression = expected.substring(2); // this is used later to look up validators by name
-                if (actValue.isNull()) {
-                    boolean isEqual;
-                    if (macroExpression.equals("null")) { // edge case
-                        isEqual = true;
-                    } else if (macroExpression.equals("notnull")) {
-                        isEqual = false;
-                    } else {
-                        isEqual = true; // for any optional, a null is ok
-                    }
-                    if (isEqual) {
-                        if (stringMatchType == MatchType.NOT_EQUALS) {
-                            return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual value is null");
-                        } else {
-                            return AssertionResult.PASS;                            
-                        }                          
-                    } else {
-                        if (stringMatchType == MatchType.NOT_EQUALS) {
-                            return AssertionResult.PASS;
-                        } else {
-                            return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual value is null");
-                        }                         
-                    }
-                }                 
-            } else {
-                macroExpression = expected.substring(1); // // this is used later to look up validators by name
-            }
-            if (isWithinParentheses(macroExpression)) { // '#(foo)' | '##(foo)' | '#(^foo)'
-                MatchType matchType = stringMatchType;
-                macroExpression = stripParentheses(macroExpression);
-                boolean isContains = true;
-                if (isContainsMacro(macroExpression)) {
-                    if (isContainsOnlyMacro(macroExpression)) {
-                        matchType = MatchType.CONTAINS_ONLY;
-                        macroExpression = macroExpression.substring(2);
-                    } else if (isContainsAnyMacro(macroExpression)) {
-                        matchType = MatchType.CONTAINS_ANY;
-                        macroExpression = macroExpression.substring(2);                        
+            MatchMacro macro = MatchMacro.get(expected);
+            if (macro.optional && actValue.isNull()) {
+                boolean isEqual;
+                if (macro.body.equals("null")) { // edge case
+                    isEqual = true;
+                } else if (macro.body.equals("notnull")) {
+                    isEqual = false;
+                } else {
+                    isEqual = true; // for any optional, a null is ok
+                }
+                if (isEqual) {
+                    if (stringMatchType == MatchType.NOT_EQUALS) {
+                        return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual value is null");
                     } else {
-                        matchType = MatchType.CONTAINS;
-                        macroExpression = macroExpression.substring(1);
-                    }
-                } else if (isNotContainsMacro(macroExpression)) {
-                    matchType = MatchType.NOT_CONTAINS;
-                    macroExpression = macroExpression.substring(2);
+                        return AssertionResult.PASS;                            
+                    }                          
                 } else {
-                    isContains = false;
+                    if (stringMatchType == MatchType.NOT_EQUALS) {
+                        return AssertionResult.PASS;
+                    } else {
+                        return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual value is null");
+                    }                         
                 }
-                ScriptValue expValue = evalJsExpression(macroExpression, context, actValue, actRoot, actParent);
+            }
+            if (macro.type == MatchMacro.Type.EMBEDDED) { // '#(foo)' | '##(foo)' | '#(^foo)'
+                boolean isContains = macro.embeddedMatchType != null;
+                MatchType matchType = isContains ? macro.embeddedMatchType : stringMatchType;
+                ScriptValue expValue = evalJsExpression(macro.embeddedExpression, context, actValue, actRoot, actParent);
                 if (isContains && actValue.isListLike() && !expValue.isListLike()) { // if RHS is not list, make it so for contains                    
                     expValue = new ScriptValue(Collections.singletonList(expValue.getValue()));
                 }
@@ -778,10 +766,8 @@ public class Script {
                 } else {
                     return ar;
                 }
-            } else if (macroExpression.startsWith("regex")) {
-                String regex = macroExpression.substring(5).trim();
-                RegexValidator v = new RegexValidator(regex);
-                ValidationResult vr = v.validate(actValue);
+            } else if (macro.type == MatchMacro.Type.REGEX) {
+                ValidationResult vr = macro.regexValidator.validate(actValue);
                 if (!vr.isPass()) {
                     if (stringMatchType == MatchType.NOT_EQUALS) {
                         return AssertionResult.PASS;
@@ -789,7 +775,7 @@ public class Script {
                         return matchFailed(stringMatchType, path, actValue.getValue(), expected, vr.getMessage());
                     }
                 }
-            } else if (macroExpression.startsWith("[") && macroExpression.indexOf(']') > 0) {
+            } else if (macro.type == MatchMacro.Type.ARRAY) {
                 // check if array
                 ValidationResult vr = ArrayValidator.INSTANCE.validate(actValue);
                 if (!vr.isPass()) {
@@ -799,71 +785,41 @@ public class Script {
                         return matchFailed(stringMatchType, path, actValue.getValue(), expected, vr.getMessage());
                     }
                 }
-                int endBracketPos = macroExpression.indexOf(']');
                 List actValueList = actValue.getAsList();
-                if (endBracketPos > 1) {
-                    int arrayLength = actValueList.size();
-                    String bracketContents = macroExpression.substring(1, endBracketPos);
+                int arrayLength = actValueList.size();
+                boolean lengthOk;
+                if (macro.arrayLength != null) { // #[5] no need for js
+                    lengthOk = macro.arrayLength == arrayLength;
+                } else if (macro.arrayLengthExpression != null) {
                     String expression;
-                    if (bracketContents.indexOf('_') != -1) { // #[_ < 5]  
-                        expression = bracketContents;
-                    } else { // #[5] | #[$.foo] 
-                        expression = bracketContents + " == " + arrayLength;
+                    if (macro.arrayLengthExpression.indexOf('_') != -1) { // #[_ < 5]  
+                        expression = macro.arrayLengthExpression;
+                    } else { // #[$.foo] 
+                        expression = macro.arrayLengthExpression + " == " + arrayLength;
                     }
                     ScriptValue result = evalJsExpression(expression, context, new ScriptValue(arrayLength), actRoot, actParent);
-                    if (!result.isBooleanTrue()) {
-                        if (stringMatchType == MatchType.NOT_EQUALS) {
-                            return AssertionResult.PASS;
-                        } else {
-                            return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual array length was: " + arrayLength);
-                        }
+                    lengthOk = result.isBooleanTrue();
+                } else {
+                    lengthOk = true;
+                }
+                if (!lengthOk) {
+                    if (stringMatchType == MatchType.NOT_EQUALS) {
+                        return AssertionResult.PASS;
+                    } else {
+                        return matchFailed(stringMatchType, path, actValue.getValue(), expected, "actual array length was: " + arrayLength);
                     }
                 }
-                if (macroExpression.length() > endBracketPos + 1) { // expression
-                    // macro-fy before attempting to re-use match-each routine
-                    String expression = macroExpression.substring(endBracketPos + 1);
-                    expression = StringUtils.trimToNull(expression);
-                    MatchType matchType = stringMatchType == MatchType.NOT_EQUALS ? MatchType.EACH_NOT_EQUALS : MatchType.EACH_EQUALS;
-                    if (expression != null) {
-                        if (expression.startsWith("?")) {
-                            expression = "'#" + expression + "'";
-                        } else if (expression.startsWith("#")) {
-                            expression = "'" + expression + "'";
-                        } else {
-                            if (isWithinParentheses(expression)) {
-                                expression = stripParentheses(expression);
-                            }
-                            if (isContainsMacro(expression)) {
-                                if (isContainsOnlyMacro(expression)) {
-                                    matchType = MatchType.EACH_CONTAINS_ONLY;
-                                    expression = expression.substring(2);
-                                } else if (isContainsAnyMacro(expression)) {
-                                    matchType = MatchType.EACH_CONTAINS_ANY;
-                                    expression = expression.substring(2);                                    
-                                } else {
-                                    matchType = MatchType.EACH_CONTAINS;
-                                    expression = expression.substring(1);
-                                }
-                            } else if (isNotContainsMacro(expression)) {
-                                matchType = MatchType.EACH_NOT_CONTAINS;
-                                expression = expression.substring(2);
-                            }
-                        }
-                        // actRoot assumed to be json in this case                        
-                        return matchJsonOrObject(matchType, new ScriptValue(actRoot), path, expression, context);
+                if (macro.arrayEachExpression != null) { // re-use the match-each routine
+                    MatchType matchType = macro.arrayEachMatchType;
+                    if (matchType == null) {
+                        matchType = stringMatchType == MatchType.NOT_EQUALS ? MatchType.EACH_NOT_EQUALS : MatchType.EACH_EQUALS;
                     }
+                    // actRoot assumed to be json in this case                        
+                    return matchJsonOrObject(matchType, new ScriptValue(actRoot), path, macro.arrayEachExpression, context);
                 }
             } else { // '#? _ != 0' | '#string' | '#number? _ > 0'
-                int questionPos = macroExpression.indexOf('?');
-                String validatorName = null;
-                if (questionPos != -1) {
-                    validatorName = macroExpression.substring(0, questionPos);
-                } else {
-                    validatorName = macroExpression;
-                }
-                validatorName = StringUtils.trimToNull(validatorName);
-                if (validatorName != null) {
-                    Validator v = context.validators.get(validatorName);
+                if (macro.validatorName != null) {
+                    Validator v = context.validators.get(macro.validatorName);
                     if (v == null) {
                         boolean pass = expected.equals(actValue.getAsString());
                         if (!pass) {
@@ -884,9 +840,8 @@ public class Script {
                         }
                     }
                 }
-                if (questionPos != -1) {
-                    macroExpression = macroExpression.substring(questionPos + 1);
-                    ScriptValue result = evalJsExpression(macroExpression, context, actValue, actRoot, actParent);
+                if (macro.predicate != null) {
+                    ScriptValue result = evalJsExpression(macro.predicate, context, actValue, actRoot, actParent);
                     if (!result.isBooleanTrue()) {
                         if (stringMatchType == MatchType.NOT_EQUALS) {
                             return AssertionResult.PASS;
@@ -996,6 +951,13 @@ public class Script {
     }
 
     public static AssertionResult matchJsonOrObject(MatchType matchType, ScriptValue actual, String path, String expression, ScriptContext context) {
+        ScriptValue expectedValue = null; // evaluated up-front only for the short-cut
+        if ((matchType == MatchType.EQUALS || matchType == MatchType.NOT_EQUALS) && "$".equals(path) && actual.getJsonRoot() != null) {
+            expectedValue = evalKarateExpressionForMatch(expression, context);
+            if (passesWithoutWalk(matchType, actual, expectedValue, context)) {
+                return AssertionResult.PASS;
+            }
+        }
         DocumentContext actualDoc;
         switch (actual.getType()) {
             case JSON:
@@ -1044,20 +1006,9 @@ public class Script {
             default:
                 throw new RuntimeException("not json, cannot do json path for value: " + actual + ", path: " + path);
         }
-        Object actObject = actualDoc.read(path);
-        ScriptValue expected = evalKarateExpressionForMatch(expression, context);
-        Object expObject;
-        switch (expected.getType()) {
-            case JSON: // convert to map or list
-                expObject = expected.getValue(DocumentContext.class).read("$");
-                break;
-            case JS_ARRAY: // array returned by js function, needs conversion to list
-                ScriptObjectMirror som = expected.getValue(ScriptObjectMirror.class);
-                expObject = new ArrayList(som.values());
-                break;
-            default: // btw JS_OBJECT is already a map 
-                expObject = expected.getValue();
-        }
+        Object actObject = actualDoc.read(JsonUtils.compile(path));
+        ScriptValue expected = expectedValue != null ? expectedValue : evalKarateExpressionForMatch(expression, context);
+        Object expObject = toMatchObject(expected);
         switch (matchType) {
             case CONTAINS:
             case NOT_CONTAINS:
@@ -1079,16 +1030,18 @@ public class Script {
                     List actList = (List) actObject;
                     MatchType listMatchType = getInnerMatchType(matchType);
                     int actSize = actList.size();
-                    for (int i = 0; i < actSize; i++) {
-                        Object actListObject = actList.get(i);
-                        String listPath = path + "[" + i + "]";
-                        AssertionResult ar = matchNestedObject('.', listPath, listMatchType, actObject, actListObject, actListObject, expObject, context);
-                        if (!ar.pass) {
-                            if (matchType == MatchType.EACH_NOT_EQUALS) {
-                                return AssertionResult.PASS; // exit early
-                            } else {
-                                return ar; // fail early
-                            }
+                    int parallelThreshold = context.config.getMatchEachParallelThreshold();
+                    AssertionResult ar;
+                    if (parallelThreshold >= 0 && actSize > parallelThreshold) {
+                        ar = matchEachInParallel(path, listMatchType, actList, expObject, context);
+                    } else {
+                        ar = matchEach(path, listMatchType, actList, expObject, context, 0, actSize, null);
+                    }
+                    if (ar != null) {
+                        if (matchType == MatchType.EACH_NOT_EQUALS) {
+                            return AssertionResult.PASS; // exit early
+                        } else {
+                            return ar; // fail early
                         }
                     }
                     // if we reached here all list items (each) matched
@@ -1104,6 +1057,110 @@ public class Script {
         }
     }
 
+    private static Object toMatchObject(ScriptValue expected) {
+        switch (expected.getType()) {
+            case JSON: // convert to map or list
+                return expected.getValue(DocumentContext.class).read("$");
+            case JS_ARRAY: // array returned by js function, needs conversion to list
+                return expected.getAsList();
+            default: // btw JS_OBJECT is already a map 
+                return expected.getValue();
+        }
+    }
+
+    /**
+     * 'match each' on a stream (e.g. a response spooled to disk) reads the json
+     * array one item at a time instead of parsing the whole document, so within
+     * an item '$' refers to the item itself
+     */
+    public static AssertionResult matchEachInStream(MatchType matchType, ScriptValue actual, String expression, ScriptContext context) {
+        Object expObject = toMatchObject(evalKarateExpressionForMatch(expression, context));
+        MatchType listMatchType = getInnerMatchType(matchType);
+        AssertionResult[] failed = new AssertionResult[1];
+        int[] count = new int[1];
+        boolean isArray = JsonUtils.getJsonEngine().forEachArrayItem(actual.getAsStream(), item -> {
+            AssertionResult ar = matchNestedObject('.', "$", listMatchType, item, item, item, expObject, context);
+            if (!ar.pass) { // report the index, the item was matched as if it were the root
+                failed[0] = AssertionResult.fail(ar.message.replaceFirst("^path: \\$", "path: \\$[" + count[0] + "]"));
+                return false;
+            }
+            count[0]++;
+            return true;
+        });
+        if (!isArray) {
+            return matchFailed(matchType, "$", "(stream)", expObject, "actual value is not a json array");
+        }
+        if (failed[0] != null) {
+            if (matchType == MatchType.EACH_NOT_EQUALS) {
+                return AssertionResult.PASS; // exit early
+            } else {
+                return failed[0]; // fail early
+            }
+        }
+        if (matchType == MatchType.EACH_NOT_EQUALS) {
+            return matchFailed(matchType, "$", "(stream of " + count[0] + " items)", expObject, "all list items matched");
+        }
+        return AssertionResult.PASS;
+    }
+
+    /**
+     * @param firstFailure shared across workers, to skip items after a failure already found
+     * @return the result for the first item in the range that did not match, null if all did
+     */
+    private static AssertionResult matchEach(String path, MatchType listMatchType, List actList, Object expObject,
+            ScriptContext context, int from, int to, AtomicInteger firstFailure) {
+        for (int i = from; i < to; i++) {
+            if (firstFailure != null && firstFailure.get() < i) {
+                return null; // an earlier item failed, that is what will be reported
+            }
+            Object actListObject = actList.get(i);
+            if (listMatchType == MatchType.EQUALS && quickEquals(actListObject, expObject) == Boolean.TRUE) {
+                continue;
+            }
+            String listPath = path + "[" + i + "]";
+            AssertionResult ar = matchNestedObject('.', listPath, listMatchType, actList, actListObject, actListObject, expObject, context);
+            if (!ar.pass) {
+                if (firstFailure != null) {
+                    firstFailure.accumulateAndGet(i, Math::min);
+                }
+                return ar;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * same result as the sequential version: the chunks are checked in order, and
+     * within a chunk the first failure wins, so the lowest failing index is reported
+     */
+    private static AssertionResult matchEachInParallel(String path, MatchType listMatchType, List actList, Object expObject, ScriptContext context) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int size = actList.size();
+        int chunkCount = Math.min(size, pool.getParallelism() * 4);
+        AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+        List<ForkJoinTask<AssertionResult>> tasks = new ArrayList(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int from = (int) ((long) size * chunk / chunkCount);
+            int to = (int) ((long) size * (chunk + 1) / chunkCount);
+            tasks.add(pool.submit(() -> {
+                // each worker needs its own js bindings, since self, root and parent are set on them
+                ScriptContext worker = new ScriptContext(context);
+                return matchEach(path, listMatchType, actList, expObject, worker, from, to, firstFailure);
+            }));
+        }
+        try {
+            for (ForkJoinTask<AssertionResult> task : tasks) {
+                AssertionResult ar = task.join();
+                if (ar != null) {
+                    return ar;
+                }
+            }
+            return null;
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+    }
+
     private static String getLeafNameFromXmlPath(String path) {
         int pos = path.lastIndexOf('/');
         if (pos == -1) {
@@ -1150,6 +1207,20 @@ public class Script {
         }
     }
 
+    private static boolean isEach(MatchType type) {
+        switch (type) {
+            case EACH_CONTAINS:
+            case EACH_NOT_CONTAINS:
+            case EACH_CONTAINS_ONLY:
+            case EACH_CONTAINS_ANY:
+            case EACH_NOT_EQUALS:
+            case EACH_EQUALS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     public static AssertionResult matchFailed(MatchType matchType, String path,
             Object actObject, Object expObject, String reason) {
         if (path.startsWith("/")) {
@@ -1213,7 +1284,6 @@ public class Script {
             for (Map.Entry<String, Object> expEntry : expMap.entrySet()) {
                 String key = expEntry.getKey();
                 Object childExp = expEntry.getValue();
-                String childPath = delimiter == '.' ? JsonUtils.buildPath(path, key) : path + delimiter + key;
                 if (!actMap.containsKey(key)) {
                     boolean equal = false;
                     if (childExp instanceof String) {
@@ -1222,7 +1292,7 @@ public class Script {
                                 || childMacro.equals("#ignore") 
                                 || childMacro.equals("#notpresent")) { // logical match
                             if (matchType == MatchType.NOT_CONTAINS) {
-                                return matchFailed(matchType, childPath, "(not present)", childExp, "actual value contains expected");
+                                return matchFailed(matchType, buildMapPath(delimiter, path, key), "(not present)", childExp, "actual value contains expected");
                             }
                             equal = true;
                         }
@@ -1235,7 +1305,7 @@ public class Script {
                             continue; // keep trying
                         }                        
                         if (matchType != MatchType.NOT_CONTAINS) {
-                            return matchFailed(matchType, childPath, "(not present)", childExp, "actual value does not contain expected");
+                            return matchFailed(matchType, buildMapPath(delimiter, path, key), "(not present)", childExp, "actual value does not contain expected");
                         }
                     } else { // we found one
                         if (matchType == MatchType.CONTAINS_ANY) {
@@ -1245,10 +1315,15 @@ public class Script {
                     continue; // end edge case for key not present
                 }
                 Object childAct = actMap.get(key);
-                AssertionResult ar = matchNestedObject(delimiter, childPath, MatchType.EQUALS, actRoot, actMap, childAct, childExp, context);
+                AssertionResult ar;
+                if (quickEquals(childAct, childExp) == Boolean.TRUE) { // no need to walk, or build the path
+                    ar = AssertionResult.PASS;
+                } else {
+                    ar = matchNestedObject(delimiter, buildMapPath(delimiter, path, key), MatchType.EQUALS, actRoot, actMap, childAct, childExp, context);
+                }
                 if (ar.pass) { // values for this key match
                     if (matchType == MatchType.NOT_CONTAINS) {
-                        return matchFailed(matchType, childPath, childAct, childExp, "actual value contains expected");
+                        return matchFailed(matchType, buildMapPath(delimiter, path, key), childAct, childExp, "actual value contains expected");
                     }
                     if (matchType == MatchType.CONTAINS_ANY) {
                         return AssertionResult.PASS; // exit early
@@ -1297,15 +1372,30 @@ public class Script {
                     || matchType == MatchType.CONTAINS_ONLY
                     || matchType == MatchType.CONTAINS_ANY
                     || matchType == MatchType.NOT_CONTAINS) { // just checks for existence (or non-existence)
+                boolean indexed = expCount > 1; // only worth it if there will be more than one look-up
+                Map<Integer, List<Integer>> actIndex = null;
                 for (Object expListObject : expList) { // for each expected item in the list
                     boolean found = false;
-                    for (int i = 0; i < actCount; i++) {
-                        Object actListObject = actList.get(i);
-                        String listPath = buildListPath(delimiter, path, i);
-                        AssertionResult ar = matchNestedObject(delimiter, listPath, MatchType.EQUALS, actRoot, actListObject, actListObject, expListObject, context);
-                        if (ar.pass) { // exact match, we found it
-                            found = true;
-                            break;
+                    Integer expHash = indexed ? matchHash(expListObject, true) : null;
+                    if (expHash != null) { // no macros, so try only the likely candidates
+                        if (actIndex == null) {
+                            actIndex = indexByMatchHash(actList);
+                        }
+                        List<Integer> candidates = new ArrayList();
+                        candidates.addAll(actIndex.getOrDefault(expHash, Collections.emptyList()));
+                        candidates.addAll(actIndex.getOrDefault(null, Collections.emptyList()));
+                        for (int i : candidates) {
+                            if (listItemEquals(delimiter, path, i, actRoot, actList, expListObject, context)) {
+                                found = true;
+                                break;
+                            }
+                        }
+                    } else {
+                        for (int i = 0; i < actCount; i++) {
+                            if (listItemEquals(delimiter, path, i, actRoot, actList, expListObject, context)) {
+                                found = true; // exact match
+                                break;
+                            }
                         }
                     }
                     if (found) {
@@ -1334,6 +1424,9 @@ public class Script {
                 for (int i = 0; i < expCount; i++) {
                     Object expListObject = expList.get(i);
                     Object actListObject = actList.get(i);
+                    if (quickEquals(actListObject, expListObject) == Boolean.TRUE) {
+                        continue;
+                    }
                     String listPath = buildListPath(delimiter, path, i);
                     AssertionResult ar = matchNestedObject(delimiter, listPath, MatchType.EQUALS, actRoot, actListObject, actListObject, expListObject, context);
                     if (!ar.pass) {
@@ -1375,12 +1468,199 @@ public class Script {
         }
     }
 
+    /**
+     * a hash that is the same for any two values that would pass an EQUALS match,
+     * numbers hash by value irrespective of type and maps ignore key order - or
+     * null if the value cannot be hashed this way, e.g. an expected value with macros
+     */
+    private static Integer matchHash(Object o, boolean expected) {
+        return matchHash(o, expected, null);
+    }
+
+    /**
+     * @param stats if not null, the number of nodes is added to the first
+     * element and the number of strings that look like macros to the second
+     */
+    private static Integer matchHash(Object o, boolean expected, int[] stats) {
+        if (stats != null) {
+            stats[0]++;
+        }
+        if (o == null) {
+            return 0;
+        } else if (o instanceof String) {
+            String value = (String) o;
+            if (isMacro(value)) {
+                if (expected) {
+                    return null;
+                }
+                if (stats != null) {
+                    stats[1]++;
+                }
+            }
+            return value.hashCode();
+        } else if (o instanceof Number) {
+            // the + 0.0 is to turn -0.0 into 0.0
+            return Double.hashCode(((Number) o).doubleValue() + 0.0);
+        } else if (o instanceof Boolean) {
+            return o.hashCode();
+        } else if (o instanceof Map) {
+            if (ScriptBindings.getJsEngine().isObject(o)) {
+                return null;
+            }
+            int hash = 0;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) o).entrySet()) {
+                Integer valueHash = matchHash(entry.getValue(), expected, stats);
+                if (valueHash == null) {
+                    return null;
+                }
+                hash += entry.getKey().hashCode() ^ valueHash;
+            }
+            return hash;
+        } else if (o instanceof List) {
+            int hash = 1;
+            for (Object item : (List) o) {
+                Integer itemHash = matchHash(item, expected, stats);
+                if (itemHash == null) {
+                    return null;
+                }
+                hash = 31 * hash + itemHash;
+            }
+            return hash;
+        } else { // streams, pojo-s etc
+            return null;
+        }
+    }
+
+    // list indexes grouped by match hash, the ones that cannot be hashed are under the null key
+    private static Map<Integer, List<Integer>> indexByMatchHash(List list) {
+        int count = list.size();
+        Map<Integer, List<Integer>> index = new HashMap(count);
+        for (int i = 0; i < count; i++) {
+            Integer hash = matchHash(list.get(i), false);
+            index.computeIfAbsent(hash, k -> new ArrayList(1)).add(i);
+        }
+        return index;
+    }
+
+    static ScriptValue.Fingerprint fingerprint(Object o, AtomicLong counter, long count) {
+        int[] stats = new int[2];
+        Integer hash = matchHash(o, false, stats);
+        return hash == null ? null : new ScriptValue.Fingerprint(stats[0], hash, stats[1] > 0, counter, count);
+    }
+
+    /**
+     * the outcome of an EQUALS match, decided without building paths or calling
+     * into js - or null if that is not possible, e.g. when there are macros or
+     * numbers of different types
+     */
+    private static Boolean quickEquals(Object actObject, Object expObject) {
+        if (expObject == null) {
+            return actObject == null;
+        } else if (expObject instanceof String) {
+            String expString = (String) expObject;
+            if (isMacro(expString) || actObject instanceof InputStream) {
+                return null;
+            }
+            return expString.equals(actObject);
+        } else if (actObject == null) {
+            return false;
+        } else if (expObject instanceof Map) {
+            if (!(actObject instanceof Map)) {
+                return false;
+            }
+            Map<String, Object> expMap = (Map) expObject;
+            Map<String, Object> actMap = (Map) actObject;
+            if (actMap.size() > expMap.size()) {
+                return false;
+            }
+            for (Map.Entry<String, Object> expEntry : expMap.entrySet()) {
+                Object childExp = expEntry.getValue();
+                if (!actMap.containsKey(expEntry.getKey())) {
+                    return childExp instanceof String && isMacro((String) childExp) ? null : false;
+                }
+                Boolean childEquals = quickEquals(actMap.get(expEntry.getKey()), childExp);
+                if (childEquals == null || !childEquals) {
+                    return childEquals;
+                }
+            }
+            return true;
+        } else if (expObject instanceof List) {
+            if (!(actObject instanceof List)) {
+                return false;
+            }
+            List expList = (List) expObject;
+            List actList = (List) actObject;
+            int count = expList.size();
+            if (actList.size() != count) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                Boolean itemEquals = quickEquals(actList.get(i), expList.get(i));
+                if (itemEquals == null || !itemEquals) {
+                    return itemEquals;
+                }
+            }
+            return true;
+        } else if (expObject instanceof BigDecimal || actObject instanceof BigDecimal) {
+            return null;
+        } else if (isPrimitive(expObject.getClass())) {
+            if (expObject.getClass().equals(actObject.getClass())) {
+                return expObject.equals(actObject);
+            }
+            // e.g. an integer and a double, which the js engine decides
+            return expObject instanceof Number && actObject instanceof Number ? null : false;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * for an equals / not-equals match on whole values, true if the match is
+     * certain to pass without a full walk - fingerprints are only used where they
+     * can decide the outcome: for not-equals, or when both are already cached
+     */
+    private static boolean passesWithoutWalk(MatchType matchType, ScriptValue actual, ScriptValue expected, ScriptContext context) {
+        Object actRoot = actual.getJsonRoot();
+        Object expRoot = expected.getJsonRoot();
+        if (actRoot == null || expRoot == null) {
+            return false;
+        }
+        if (matchType == MatchType.NOT_EQUALS
+                || (actual.getCachedFingerprint(context) != null && expected.getCachedFingerprint(context) != null)) {
+            ScriptValue.Fingerprint expPrint = expected.getFingerprint(context);
+            if (expPrint != null && !expPrint.macros) { // else the actual is not worth hashing
+                ScriptValue.Fingerprint actPrint = actual.getFingerprint(context);
+                if (actPrint != null && (actPrint.size != expPrint.size || actPrint.hash != expPrint.hash)) {
+                    return matchType == MatchType.NOT_EQUALS;
+                }
+            }
+        }
+        Boolean equals = quickEquals(actRoot, expRoot);
+        return equals != null && equals == (matchType == MatchType.EQUALS);
+    }
+
     public static boolean isPrimitive(Class clazz) {
         return clazz.isPrimitive()
                 || Number.class.isAssignableFrom(clazz)
                 || Boolean.class.equals(clazz);
     }
 
+    // the items of contains are compared only to find one, so a definite 'not equal' is enough
+    private static boolean listItemEquals(char delimiter, String path, int index,
+            Object actRoot, List actList, Object expListObject, ScriptContext context) {
+        Object actListObject = actList.get(index);
+        Boolean equals = quickEquals(actListObject, expListObject);
+        if (equals != null) {
+            return equals;
+        }
+        String listPath = buildListPath(delimiter, path, index);
+        return matchNestedObject(delimiter, listPath, MatchType.EQUALS, actRoot, actListObject, actListObject, expListObject, context).pass;
+    }
+
+    private static String buildMapPath(char delimiter, String path, String key) {
+        return delimiter == '.' ? JsonUtils.buildPath(path, key) : path + delimiter + key;
+    }
+
     private static String buildListPath(char delimiter, String path, int index) {
         int listIndex = delimiter == '/' ? index + 1 : index;
         return path + "[" + listIndex + "]";
@@ -1470,6 +1750,15 @@ public class Script {
     }
 
     public static void setValueByPath(String name, String path, ScriptValue value, boolean delete, ScriptContext context, boolean viaTable) {
+        context.onModification();
+        try {
+            setValueByPathInternal(name, path, value, delete, context, viaTable);
+        } finally {
+            context.onModification();
+        }
+    }
+
+    private static void setValueByPathInternal(String name, String path, ScriptValue value, boolean delete, ScriptContext context, boolean viaTable) {
         name = StringUtils.trimToEmpty(name);
         path = StringUtils.trimToNull(path);
         if (path == null) {
@@ -1549,8 +1838,7 @@ public class Script {
                     default:
                         throw new RuntimeException("only json or primitives allowed as (single) function call argument");
                 }
-                ScriptObjectMirror som = sv.getValue(ScriptObjectMirror.class);
-                return evalFunctionCall(som, argValue.getValue(), context);
+                return evalFunctionCall(sv.getValue(), argValue.getValue(), context);
             case FEATURE_WRAPPER:
                 Object callArg = null;
                 switch (argValue.getType()) {
@@ -1564,11 +1852,10 @@ public class Script {
                         callArg = argValue.getValue(Map.class);
                         break;
                     case JS_OBJECT:
-                        callArg = argValue.getValue(ScriptObjectMirror.class);
+                        callArg = argValue.getValue(Map.class);
                         break;
                     case JS_ARRAY:
-                        ScriptObjectMirror temp = argValue.getValue(ScriptObjectMirror.class);
-                        callArg = temp.values();
+                        callArg = argValue.getAsList();
                         break;
                     case NULL:
                         break;
@@ -1583,23 +1870,18 @@ public class Script {
         }
     }
 
-    public static ScriptValue evalFunctionCall(ScriptObjectMirror som, Object callArg, ScriptContext context) {
-        // injects the 'karate' variable into the js function body
-        // also ensure that things like 'karate.get' operate on the latest variable state
-        som.setMember(ScriptBindings.KARATE, context.bindings.bridge);
-        Object result;
+    public static ScriptValue evalFunctionCall(Object function, Object callArg, ScriptContext context) {
+        context.onModification();
         try {
-            if (callArg != null) {
-                result = som.call(som, callArg);
-            } else {
-                result = som.call(som);
-            }
+            Object result = ScriptBindings.getJsEngine().invokeFunction(function, callArg, context.bindings.bridge);
             return new ScriptValue(result);
         } catch (Exception e) {
             String message = "javascript function call failed: " + e.getMessage();
             context.logger.error(message);
-            context.logger.error("failed function body: " + som);
+            context.logger.error("failed function body: " + function);
             throw new KarateException(message);
+        } finally {
+            context.onModification();
         }
     }
 
@@ -32,8 +32,6 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.script.Bindings;
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 
 /**
  * this class exists as a performance optimization - we init Nashorn only once
@@ -46,7 +44,23 @@ import javax.script.ScriptEngineManager;
 public class ScriptBindings implements Bindings {
 
     // all threads will share this ! thread isolation is via Bindings (this class)
-    private static final ScriptEngine NASHORN = new ScriptEngineManager(null).getEngineByName("nashorn");      
+    private static final JsEngine JS_ENGINE = createJsEngine();
+    
+    private static JsEngine createJsEngine() {
+        String className = System.getProperty(KARATE_JS_ENGINE);
+        if (className == null) {
+            return new NashornEngine();
+        }
+        try {
+            return (JsEngine) Class.forName(className).newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("failed to create js engine: " + className, e);
+        }
+    }
+    
+    public static JsEngine getJsEngine() {
+        return JS_ENGINE;
+    }
 
     protected final ScriptBridge bridge;
     
@@ -56,7 +70,10 @@ public class ScriptBindings implements Bindings {
     public static final String KARATE = "karate";
     public static final String KARATE_ENV = "karate.env";
     public static final String KARATE_CONFIG = "karate.config";
+    public static final String KARATE_CONFIG_CACHE = "karate.config.cache";
     public static final String KARATE_CONFIG_JS = "karate-config.js";
+    public static final String KARATE_JS_ENGINE = "karate.js.engine";
+    public static final String KARATE_JSON_ENGINE = "karate.json.engine";
     public static final String READ = "read";
     public static final String PATH_MATCHES = "pathMatches";
     public static final String METHOD_IS = "methodIs";
@@ -85,7 +102,12 @@ public class ScriptBindings implements Bindings {
         if (context == null) {
             return eval(exp, null);
         } else {
-            return context.bindings.updateBindingsAndEval(exp, evalContext);
+            context.onModification(); // the script could change any value it can reach
+            try {
+                return context.bindings.updateBindingsAndEval(exp, evalContext);
+            } finally { // and a fingerprint computed while it ran may already be stale
+                context.onModification();
+            }
         }
     }
 
@@ -105,7 +127,7 @@ public class ScriptBindings implements Bindings {
 
     private static ScriptValue eval(String exp, Bindings bindings) {
         try {
-            Object o = bindings == null ? NASHORN.eval(exp) : NASHORN.eval(exp, bindings);
+            Object o = JS_ENGINE.eval(exp, bindings);
             return new ScriptValue(o);
         } catch (Exception e) {
             // reduce log bloat for common file-not-found situation
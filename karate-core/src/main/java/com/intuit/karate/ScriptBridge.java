@@ -35,7 +35,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
@@ -123,7 +122,7 @@ public class ScriptBridge {
     
     public Object jsonPath(Object o, String exp) {
         DocumentContext doc = JsonPath.parse(o);
-        return doc.read(exp);
+        return doc.read(JsonUtils.compile(exp));
     }
     
     public Object toBean(Object o, String className) {
@@ -143,8 +142,7 @@ public class ScriptBridge {
                 FeatureWrapper feature = sv.getValue(FeatureWrapper.class);
                 return Script.evalFeatureCall(feature, arg, context, false).getValue();
             case JS_FUNCTION:
-                ScriptObjectMirror som = sv.getValue(ScriptObjectMirror.class);
-                return Script.evalFunctionCall(som, arg, context).getValue();
+                return Script.evalFunctionCall(sv.getValue(), arg, context).getValue();
             default:
                 context.logger.warn("not a js function or feature file: {} - {}", fileName, sv);
                 return null;
@@ -34,6 +34,7 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 
 /**
@@ -55,6 +56,10 @@ public class ScriptContext {
 
     protected final ScenarioInfo scenarioInfo;
 
+    // bumped by anything that can change json values in place, see ScriptValue.getFingerprint()
+    // and shared with called features and workers, which can reach (and change) the same values
+    private final AtomicLong modificationCounter;
+
     // these can get re-built or swapped, so cannot be final
     protected HttpClient client;
     protected HttpConfig config;
@@ -74,6 +79,18 @@ public class ScriptContext {
         return env;
     }
 
+    /**
+     * to be called before and after anything that can change json values in
+     * place, which is any js evaluation and the 'set' and 'remove' keywords
+     */
+    public void onModification() {
+        modificationCounter.incrementAndGet();
+    }
+
+    protected AtomicLong getModificationCounter() {
+        return modificationCounter;
+    }
+
     public ScriptValueMap getVars() {
         return vars;
     }
@@ -114,6 +131,7 @@ public class ScriptContext {
         tags = call.getTags();
         tagValues = call.getTagValues();
         scenarioInfo = call.getScenarioInfo();
+        modificationCounter = call.parentContext == null ? new AtomicLong() : call.parentContext.modificationCounter;
         if (call.reuseParentContext) {
             vars = call.parentContext.vars; // shared context !
             validators = call.parentContext.validators;
@@ -131,21 +149,14 @@ public class ScriptContext {
         client = HttpClient.construct(config, this);
         bindings = new ScriptBindings(this);
         if (call.parentContext == null && call.evalKarateConfig) {
-            try {
-                String configScript;
-                String configPath = System.getProperty(ScriptBindings.KARATE_CONFIG);
-                if (configPath != null) { // over-ridden by user or command-line / stand-alone jar
-                    File configFile = new File(configPath);
-                    configScript = String.format("%s('%s')", ScriptBindings.READ, FileUtils.FILE_COLON + configFile.getPath());
-                } else {
-                    configScript = ScriptBindings.READ_KARATE_CONFIG;
-                }
-                Script.callAndUpdateConfigAndAlsoVarsIfMapReturned(false, configScript, null, this);
-            } catch (Exception e) {
-                if (e instanceof KarateFileNotFoundException) {
-                    logger.warn("skipping bootstrap configuration: {}", e.getMessage());
-                } else {
-                    throw new RuntimeException("evaluation of " + ScriptBindings.KARATE_CONFIG_JS + " failed:", e);
+            String configPath = System.getProperty(ScriptBindings.KARATE_CONFIG);
+            ConfigCache cached = ConfigCache.isEnabled() ? ConfigCache.get(this.env, configPath) : null;
+            if (cached != null) {
+                cached.restore(this);
+            } else {
+                evalKarateConfig(configPath);
+                if (ConfigCache.isEnabled()) {
+                    ConfigCache.put(this.env, configPath, this);
                 }
             }
         }
@@ -162,6 +173,46 @@ public class ScriptContext {
         logger.trace("karate context init - initial properties: {}", vars);
     }
 
+    /**
+     * shares everything with the parent (variables, config, http client) except
+     * for the javascript bindings, which are not thread-safe - so that a worker
+     * thread can evaluate expressions (read-only) against the same variables
+     */
+    protected ScriptContext(ScriptContext parent) {
+        env = parent.env;
+        logger = parent.logger;
+        callDepth = parent.callDepth;
+        tags = parent.tags;
+        tagValues = parent.tagValues;
+        scenarioInfo = parent.scenarioInfo;
+        modificationCounter = parent.modificationCounter;
+        vars = parent.vars;
+        validators = parent.validators;
+        config = parent.config;
+        client = parent.client;
+        prevRequest = parent.prevRequest;
+        bindings = new ScriptBindings(this);
+    }
+
+    private void evalKarateConfig(String configPath) {
+        try {
+            String configScript;
+            if (configPath != null) { // over-ridden by user or command-line / stand-alone jar
+                File configFile = new File(configPath);
+                configScript = String.format("%s('%s')", ScriptBindings.READ, FileUtils.FILE_COLON + configFile.getPath());
+            } else {
+                configScript = ScriptBindings.READ_KARATE_CONFIG;
+            }
+            Script.callAndUpdateConfigAndAlsoVarsIfMapReturned(false, configScript, null, this);
+        } catch (Exception e) {
+            if (e instanceof KarateFileNotFoundException) {
+                logger.warn("skipping bootstrap configuration: {}", e.getMessage());
+            } else {
+                throw new RuntimeException("evaluation of " + ScriptBindings.KARATE_CONFIG_JS + " failed:", e);
+            }
+        }
+    }
+
     public void configure(HttpConfig config) {
         this.config = config;
         client = HttpClient.construct(config, this);
@@ -189,6 +240,10 @@ public class ScriptContext {
             config.setCorsEnabled(value.isBooleanTrue());
             return;
         }
+        if (key.equals("concurrent")) {
+            config.setConcurrentEnabled(value.isBooleanTrue());
+            return;
+        }
         if (key.equals("logPrettyResponse")) {
             config.setLogPrettyResponse(value.isBooleanTrue());
             return;
@@ -197,6 +252,26 @@ public class ScriptContext {
             config.setLogPrettyRequest(value.isBooleanTrue());
             return;
         }
+        if (key.equals("streamResponse")) { // true, or the size in bytes above which the body is spooled to disk
+            if (value.isBooleanTrue()) {
+                config.setStreamResponseThreshold(HttpConfig.DEFAULT_STREAM_RESPONSE_THRESHOLD);
+            } else if (value.getValue() instanceof Number) {
+                config.setStreamResponseThreshold(value.getValue(Number.class).intValue());
+            } else {
+                config.setStreamResponseThreshold(-1);
+            }
+            return;
+        }
+        if (key.equals("matchEachParallel")) { // true, or the array size above which 'match each' goes parallel
+            if (value.isBooleanTrue()) {
+                config.setMatchEachParallelThreshold(HttpConfig.DEFAULT_MATCH_EACH_PARALLEL_THRESHOLD);
+            } else if (value.getValue() instanceof Number) {
+                config.setMatchEachParallelThreshold(value.getValue(Number.class).intValue());
+            } else {
+                config.setMatchEachParallelThreshold(-1);
+            }
+            return;
+        }
         if (key.equals("printEnabled")) {
             config.setPrintEnabled(value.isBooleanTrue());
             return;
@@ -259,6 +334,10 @@ public class ScriptContext {
             config.setConnectTimeout(Integer.valueOf(value.getAsString()));
         } else if (key.equals("readTimeout")) {
             config.setReadTimeout(Integer.valueOf(value.getAsString()));
+        } else if (key.equals("maxConnectionsPerRoute")) {
+            config.setMaxConnectionsPerRoute(Integer.valueOf(value.getAsString()));
+        } else if (key.equals("maxConnectionsTotal")) {
+            config.setMaxConnectionsTotal(Integer.valueOf(value.getAsString()));
         } else if (key.equals("proxy")) {
             if (value.isString()) {
                 config.setProxyUri(value.getAsString());
@@ -56,7 +56,12 @@ public class ScriptEnv {
     }
     
     public ScriptEnv(String env, File featureDir, String featureName, ClassLoader fileClassLoader, KarateReporter reporter) {
-        this(env, featureDir, featureName, fileClassLoader, new CallCache(), 
+        this(env, featureDir, featureName, fileClassLoader, new CallCache(), reporter);
+    }
+    
+    public ScriptEnv(String env, File featureDir, String featureName, ClassLoader fileClassLoader, 
+            CallCache callCache, KarateReporter reporter) {
+        this(env, featureDir, featureName, fileClassLoader, callCache, 
                 LoggerFactory.getLogger("com.intuit.karate"), reporter, new Debug());
     }
     
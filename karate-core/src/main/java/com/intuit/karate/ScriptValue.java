@@ -28,10 +28,9 @@ import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import java.util.concurrent.atomic.AtomicLong;
 import org.w3c.dom.Node;
 
 /**
@@ -59,9 +58,33 @@ public class ScriptValue {
         FEATURE_WRAPPER
     }
 
+    /**
+     * the number of nodes and a hash of a json value, the same for any two
+     * values that would pass an 'equals' match - but only if the expected one
+     * has no macros, which are hashed like any other string
+     */
+    public static class Fingerprint {
+
+        public final int size;
+        public final int hash;
+        public final boolean macros;
+        private final AtomicLong counter;
+        private final long count;
+
+        Fingerprint(int size, int hash, boolean macros, AtomicLong counter, long count) {
+            this.size = size;
+            this.hash = hash;
+            this.macros = macros;
+            this.counter = counter;
+            this.count = count;
+        }
+
+    }
+
     private final Object value;
     private final Type type;
     private final String source; // file this came from, for better debug / logging
+    private Fingerprint fingerprint;
 
     public Object getValue() {
         return value;
@@ -150,8 +173,7 @@ public class ScriptValue {
     public List getAsList() {
         switch (type) {
             case JS_ARRAY:
-                ScriptObjectMirror som = (ScriptObjectMirror) value;
-                return new ArrayList(som.values());
+                return ScriptBindings.getJsEngine().toList(value);
             case LIST:
                 return getValue(List.class);
             case JSON:
@@ -186,18 +208,16 @@ public class ScriptValue {
             case FEATURE_WRAPPER:
             case JS_FUNCTION:                
                 return this;
-            case XML:
-                String xml = XmlUtils.toString(getValue(Node.class));
-                return new ScriptValue(XmlUtils.toXmlDoc(xml));
+            case XML: // no serialize and re-parse round-trips
+                return new ScriptValue(getValue(Node.class).cloneNode(true));
             case JSON:
-                String json = getValue(DocumentContext.class).jsonString();
-                return new ScriptValue(JsonPath.parse(json));
+                Object json = getValue(DocumentContext.class).read("$");
+                return new ScriptValue(JsonPath.parse(JsonUtils.deepCopy(json)));
             case MAP:                                               
             case JS_OBJECT:
             case JS_ARRAY:
             case LIST:
-                DocumentContext mapOrListJson = getAsJsonDocument();
-                return new ScriptValue(JsonPath.parse(mapOrListJson).read("$"));            
+                return new ScriptValue(JsonUtils.deepCopy(value));
             default:
                 return this;
         }
@@ -208,8 +228,7 @@ public class ScriptValue {
             case JSON:
                 return getValue(DocumentContext.class);
             case JS_ARRAY: // happens for json resulting from nashorn
-                ScriptObjectMirror som = getValue(ScriptObjectMirror.class);
-                return JsonPath.parse(som.values());
+                return JsonPath.parse(ScriptBindings.getJsEngine().toList(value));
             case JS_OBJECT: // is a map-like object, happens for json resulting from nashorn
             case MAP: // this happens because some jsonpath operations result in Map
                 Map<String, Object> map = getValue(Map.class);
@@ -251,8 +270,7 @@ public class ScriptValue {
     }
 
     public ScriptValue invokeFunction(ScriptContext context) {
-        ScriptObjectMirror som = getValue(ScriptObjectMirror.class);
-        return Script.evalFunctionCall(som, null, context);
+        return Script.evalFunctionCall(value, null, context);
     }
 
     public Map<String, Object> evalAsMap(ScriptContext context) {
@@ -356,6 +374,49 @@ public class ScriptValue {
         return type;
     }
 
+    /**
+     * @return null if this is not json (or a map or list), or if it cannot be
+     * fingerprinted e.g. because it contains js objects
+     */
+    public Fingerprint getFingerprint(ScriptContext context) {
+        Object root = getJsonRoot();
+        if (root == null) {
+            return null;
+        }
+        Fingerprint temp = getCachedFingerprint(context);
+        if (temp == null) {
+            AtomicLong counter = context.getModificationCounter();
+            // read before hashing, so that a change while hashing invalidates the result
+            temp = Script.fingerprint(root, counter, counter.get());
+            fingerprint = temp;
+        }
+        return temp;
+    }
+
+    /**
+     * json values are mutable and can be shared, so a fingerprint is only trusted
+     * if nothing that could have changed any value of the context has happened since
+     * 
+     * @return the fingerprint computed earlier if still valid, else null
+     */
+    public Fingerprint getCachedFingerprint(ScriptContext context) {
+        Fingerprint temp = fingerprint;
+        AtomicLong counter = context.getModificationCounter();
+        return temp != null && temp.counter == counter && temp.count == counter.get() ? temp : null;
+    }
+
+    protected Object getJsonRoot() {
+        switch (type) {
+            case JSON:
+                return ((DocumentContext) value).json();
+            case MAP:
+            case LIST:
+                return value;
+            default:
+                return null;
+        }
+    }
+
     public <T> T getValue(Class<T> clazz) {
         if (value == null) {
             return null;
@@ -379,11 +440,11 @@ public class ScriptValue {
         } else if (value instanceof List) {
             type = Type.LIST;
         } else if (value instanceof Map) {
-            if (value instanceof ScriptObjectMirror) {
-                ScriptObjectMirror som = (ScriptObjectMirror) value;
-                if (som.isArray()) {
+            JsEngine js = ScriptBindings.getJsEngine();
+            if (js.isObject(value)) {
+                if (js.isArray(value)) {
                     type = Type.JS_ARRAY;
-                } else if (som.isFunction()) {
+                } else if (js.isFunction(value)) {
                     type = Type.JS_FUNCTION;
                 } else {
                     type = Type.JS_OBJECT;
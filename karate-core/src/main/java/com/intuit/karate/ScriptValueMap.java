@@ -1,7 +1,11 @@
 package com.intuit.karate;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  *
@@ -14,6 +18,8 @@ public class ScriptValueMap extends HashMap<String, ScriptValue> {
     public static final String VAR_RESPONSE_HEADERS = "responseHeaders";
     public static final String VAR_RESPONSE_STATUS = "responseStatus";
     public static final String VAR_RESPONSE_TIME = "responseTime";
+    public static final String VAR_RESPONSE_LENGTH = "responseLength";
+    public static final String VAR_RESPONSE_DIGEST = "responseDigest";
 
     public static final String VAR_REQUEST = "request";
     public static final String VAR_REQUEST_URL_BASE = "requestUrlBase";
@@ -28,6 +34,83 @@ public class ScriptValueMap extends HashMap<String, ScriptValue> {
         return super.put(key, sv);
     }
 
+    // evaluated only when first looked up, and then replaced by the result
+    private static class Lazy {
+
+        private Supplier<Object> supplier;
+        private Object value;
+
+        Lazy(Supplier<Object> supplier) {
+            this.supplier = supplier;
+        }
+
+        synchronized Object get() {
+            if (supplier != null) { // copies of the map share this, so evaluate only once
+                value = supplier.get();
+                supplier = null;
+            }
+            return value;
+        }
+
+    }
+
+    public void putLazy(String key, Supplier<Object> supplier) {
+        super.put(key, new ScriptValue(new Lazy(supplier)));
+    }
+
+    private static boolean isLazy(ScriptValue sv) {
+        return sv != null && sv.getValue() instanceof Lazy;
+    }
+
+    @Override
+    public ScriptValue get(Object key) {
+        ScriptValue sv = super.get(key);
+        if (isLazy(sv)) {
+            sv = new ScriptValue(((Lazy) sv.getValue()).get());
+            super.put((String) key, sv);
+        }
+        return sv;
+    }
+
+    @Override
+    public ScriptValue remove(Object key) {
+        ScriptValue sv = get(key);
+        super.remove(key);
+        return sv;
+    }
+
+    @Override
+    public ScriptValue getOrDefault(Object key, ScriptValue defaultValue) {
+        ScriptValue sv = get(key);
+        return sv == null ? defaultValue : sv;
+    }
+
+    private void resolveAll() {
+        for (Map.Entry<String, ScriptValue> entry : super.entrySet()) {
+            if (isLazy(entry.getValue())) {
+                entry.setValue(new ScriptValue(((Lazy) entry.getValue().getValue()).get()));
+            }
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, ScriptValue>> entrySet() {
+        resolveAll();
+        return super.entrySet();
+    }
+
+    @Override
+    public Collection<ScriptValue> values() {
+        resolveAll();
+        return super.values();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super ScriptValue> action) {
+        resolveAll();
+        super.forEach(action);
+    }
+
     public <T> T get(String key, Class<T> clazz) {
         ScriptValue sv = get(key);
         if (sv == null) {
@@ -42,7 +125,7 @@ public class ScriptValueMap extends HashMap<String, ScriptValue> {
 
     public ScriptValueMap copy() {
         ScriptValueMap copy = new ScriptValueMap();
-        forEach((k, v) -> copy.put(k, v));
+        super.forEach((k, v) -> copy.put(k, v)); // lazy values stay lazy
         return copy;
     }
 
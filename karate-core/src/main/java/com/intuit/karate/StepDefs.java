@@ -472,7 +472,9 @@ public class StepDefs {
     @When("^status (\\d+)")
     public void status(int status) {
         if (status != response.getStatus()) {
-            String rawResponse = context.vars.get(ScriptValueMap.VAR_RESPONSE).getAsString();
+            String rawResponse = response.getBodyFile() == null
+                    ? context.vars.get(ScriptValueMap.VAR_RESPONSE).getAsString()
+                    : "(" + response.getBodyLength() + " bytes, streamed)";
             String responseTime = context.vars.get(ScriptValueMap.VAR_RESPONSE_TIME).getAsString();
             String message = "status code was: " + response.getStatus() + ", expected: " + status
                     + ", response time: " + responseTime + ", url: " + response.getUri() + ", response: " + rawResponse;
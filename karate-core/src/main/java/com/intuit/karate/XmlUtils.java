@@ -66,6 +66,36 @@ public class XmlUtils {
         // only static methods
     }
 
+    // jaxp factory look-up is very expensive, but neither the factories nor what they
+    // create are thread-safe, so each thread gets its own (re-usable) instances
+
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    private static final ThreadLocal<TransformerFactory> TRANSFORMER_FACTORY = ThreadLocal.withInitial(TransformerFactory::newInstance);
+
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    private static final ThreadLocal<LruCache<String, XPathExpression>> XPATH_CACHE = ThreadLocal.withInitial(() -> new LruCache(500));
+
+    private static DocumentBuilder getDocumentBuilder() {
+        DocumentBuilder builder = DOCUMENT_BUILDER.get();
+        builder.reset();
+        return builder;
+    }
+
+    /**
+     * compiled expressions are not thread-safe, so this is per thread
+     */
+    public static LruCache<String, XPathExpression> getXpathCache() {
+        return XPATH_CACHE.get();
+    }
+
     public static String toString(Node node) {
         return toString(node, false);
     }
@@ -77,9 +107,8 @@ public class XmlUtils {
         DOMSource domSource = new DOMSource(node);
         StringWriter writer = new StringWriter();
         StreamResult result = new StreamResult(writer);
-        TransformerFactory tf = TransformerFactory.newInstance();
         try {
-            Transformer transformer = tf.newTransformer();
+            Transformer transformer = TRANSFORMER_FACTORY.get().newTransformer();
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             if (pretty) {
                 transformer.setOutputProperty(OutputKeys.INDENT, "yes");
@@ -117,9 +146,8 @@ public class XmlUtils {
     }
 
     public static Document toXmlDoc(String xml) {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();        
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = getDocumentBuilder();
             DtdEntityResolver dtdEntityResolver = new DtdEntityResolver();
             builder.setEntityResolver(dtdEntityResolver);            
             InputStream is = FileUtils.toInputStream(xml);
@@ -137,13 +165,13 @@ public class XmlUtils {
     }
 
     private static XPathExpression compile(String path) {
-        XPathFactory xPathfactory = XPathFactory.newInstance();
-        XPath xpath = xPathfactory.newXPath();
-        try {
-            return xpath.compile(path);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return XPATH_CACHE.get().get(path, p -> {
+            try {
+                return XPATH.get().compile(p);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     public static NodeList getNodeListByPath(Node node, String path) {
@@ -397,14 +425,7 @@ public class XmlUtils {
     }
 
     public static Document newDocument() {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        try {
-            builder = factory.newDocumentBuilder();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return builder.newDocument();
+        return getDocumentBuilder().newDocument();
     }
 
     public static void addAttributes(Element element, Map<String, Object> map) {
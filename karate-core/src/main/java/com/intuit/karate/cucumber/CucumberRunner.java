@@ -23,13 +23,17 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.CallCache;
 import com.intuit.karate.CallContext;
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.Script;
 import com.intuit.karate.ScriptValueMap;
 import com.intuit.karate.filter.TagFilter;
 import com.intuit.karate.filter.TagFilterException;
+import cucumber.runtime.model.CucumberExamples;
 import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenario;
+import cucumber.runtime.model.CucumberScenarioOutline;
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
@@ -39,8 +43,9 @@ import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import cucumber.runtime.model.CucumberTagStatement;
 import org.slf4j.Logger;
@@ -59,23 +64,53 @@ public class CucumberRunner {
     }
 
     public static KarateStats parallel(Class clazz, int threadCount, String reportDir) {
+        return parallel(clazz, threadCount, reportDir, false);
+    }
+
+    public static KarateStats parallel(Class clazz, int threadCount, String reportDir, boolean parallelScenarios) {
         KarateStats stats = KarateStats.startTimer();
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        // work-stealing, so that a thread that is done early picks up whatever is still queued
+        ExecutorService executor = new ForkJoinPool(threadCount);
+        KarateTimings timings = KarateTimings.forReportDir(reportDir);
         try {
             KarateRuntimeOptions kro = new KarateRuntimeOptions(clazz);
             List<KarateFeature> karateFeatures = KarateFeature.loadFeatures(kro);
             int count = karateFeatures.size();
             int filteredCount = 0;
             List<Callable<KarateJunitAndJsonReporter>> callables = new ArrayList<>(count);
+            // the units of work that will be scheduled, features or scenarios depending on the mode
+            List<String> keys = new ArrayList();
+            List<FutureTask<KarateRecordingReporter>> tasks = new ArrayList();
             for (int i = 0; i < count; i++) {
                 KarateFeature karateFeature = karateFeatures.get(i);
                 int index = i + 1;
                 CucumberFeature feature = karateFeature.getFeature();
                 filterOnTags(feature);
-                if (!feature.getFeatureElements().isEmpty()) {
+                if (feature.getFeatureElements().isEmpty()) {
+                    filteredCount++;
+                } else if (parallelScenarios) {
+                    // the callable only waits for the scenarios and assembles the report
+                    List<Object> parts = prepareScenarios(karateFeature, timings, keys, tasks);
+                    callables.add(() -> {
+                        KarateJunitAndJsonReporter reporter = karateFeature.getReporter(reportDir);
+                        try {
+                            replayScenarios(parts, feature, reporter);
+                            logger.info("<<<< feature {} of {}: {}", index, count, feature.getPath());
+                        } catch (Exception e) {
+                            logger.error("karate xml/json generation failed for: {}", feature.getPath());
+                            reporter.setFailureReason(e);
+                        } finally {
+                            reporter.done();
+                        }
+                        return reporter;
+                    });
+                } else {
+                    String key = FileUtils.toPackageQualifiedName(feature.getPath());
+                    keys.add(key);
                     callables.add(() -> {
                         // we are now within a separate thread. the reporter filters logs by self thread
                         String threadName = Thread.currentThread().getName();
+                        long startTime = System.nanoTime();
                         KarateJunitAndJsonReporter reporter = karateFeature.getReporter(reportDir);
                         KarateRuntime runtime = karateFeature.getRuntime(reporter);
                         try {
@@ -88,18 +123,49 @@ public class CucumberRunner {
                         } finally { // try our best to close the report file gracefully so that report generation is not broken
                             reporter.done();
                         }
+                        timings.put(key, (System.nanoTime() - startTime) / 1000000000d);
                         return reporter;
                     });
-                } else {
-                    filteredCount++;
                 }
             }
             stats.setFeatureCount(count - filteredCount);
-
-            List<Future<KarateJunitAndJsonReporter>> futures = executor.invokeAll(callables);
+            // longest first, so that a long-running unit does not end up being started last
+            List<Integer> order = null;
+            List<Double> estimates = timings.estimate(keys);
+            if (estimates != null) {
+                order = KarateTimings.longestFirst(estimates);
+                stats.setPredictedMakespan(KarateTimings.makespan(estimates, threadCount));
+            }
+            List<KarateJunitAndJsonReporter> reporters = new ArrayList(callables.size());
+            if (parallelScenarios) { // the pool is busy with scenarios, so assemble reports on this thread
+                if (order == null) {
+                    tasks.forEach(executor::execute);
+                } else {
+                    order.forEach(i -> executor.execute(tasks.get(i)));
+                }
+                for (Callable<KarateJunitAndJsonReporter> callable : callables) {
+                    reporters.add(callable.call());
+                }
+            } else {
+                List<Callable<KarateJunitAndJsonReporter>> sorted = callables;
+                if (order != null) {
+                    sorted = new ArrayList(callables.size());
+                    for (int i : order) {
+                        sorted.add(callables.get(i));
+                    }
+                }
+                List<Future<KarateJunitAndJsonReporter>> futures = executor.invokeAll(sorted);
+                KarateJunitAndJsonReporter[] results = new KarateJunitAndJsonReporter[futures.size()];
+                for (int i = 0; i < results.length; i++) { // back to the original order for the stats
+                    results[order == null ? i : order.get(i)] = futures.get(i).get();
+                }
+                for (KarateJunitAndJsonReporter reporter : results) {
+                    reporters.add(reporter);
+                }
+            }
             stats.stopTimer();
-            for (Future<KarateJunitAndJsonReporter> future : futures) {
-                KarateJunitAndJsonReporter reporter = future.get(); // guaranteed to be not-null
+            timings.save();
+            for (KarateJunitAndJsonReporter reporter : reporters) { // guaranteed to be not-null
                 KarateJunitFormatter formatter = reporter.getJunitFormatter();
                 if (reporter.getFailureReason() != null) {
                     logger.error("karate xml/json generation failed: {}", formatter.getFeaturePath());
@@ -123,6 +189,81 @@ public class CucumberRunner {
         return stats;
     }
 
+    // the feature is broken into scenarios and outline example rows, and each runs on its own backend
+    // the returned list holds, in order, the outline / examples headers and the scenario tasks
+    // the tasks (and their timing keys) are also collected so that they can be scheduled across features
+    private static List<Object> prepareScenarios(KarateFeature karateFeature, KarateTimings timings,
+            List<String> keys, List<FutureTask<KarateRecordingReporter>> tasks) {
+        CucumberFeature feature = karateFeature.getFeature();
+        String featurePath = FileUtils.toPackageQualifiedName(feature.getPath());
+        CallCache callCache = new CallCache(); // callonce is still once per feature
+        List<Object> parts = new ArrayList();
+        for (CucumberTagStatement cts : feature.getFeatureElements()) {
+            if (cts instanceof CucumberScenarioOutline) {
+                CucumberScenarioOutline outline = (CucumberScenarioOutline) cts;
+                parts.add(outline);
+                for (CucumberExamples examples : outline.getCucumberExamplesList()) {
+                    parts.add(examples);
+                    for (CucumberScenario scenario : examples.createExampleScenarios()) {
+                        parts.add(scenarioTask(karateFeature, scenario, callCache, timings, featurePath, keys, tasks));
+                    }
+                }
+            } else {
+                parts.add(scenarioTask(karateFeature, cts, callCache, timings, featurePath, keys, tasks));
+            }
+        }
+        return parts;
+    }
+
+    private static FutureTask<KarateRecordingReporter> scenarioTask(KarateFeature karateFeature,
+            CucumberTagStatement scenario, CallCache callCache, KarateTimings timings, String featurePath,
+            List<String> keys, List<FutureTask<KarateRecordingReporter>> tasks) {
+        String key = featurePath + ":" + scenario.getGherkinModel().getLine();
+        FutureTask<KarateRecordingReporter> task = new FutureTask(() -> {
+            long startTime = System.nanoTime();
+            // has to be created on this thread, see the log appender
+            KarateRecordingReporter recorder = new KarateRecordingReporter();
+            try {
+                KarateRuntime runtime = karateFeature.getRuntime(recorder, callCache);
+                recorder.setRuntime(runtime);
+                scenario.run(recorder, recorder, runtime);
+            } catch (Exception e) {
+                recorder.setFailureReason(e);
+            } finally {
+                recorder.done();
+            }
+            timings.put(key, (System.nanoTime() - startTime) / 1000000000d);
+            return recorder;
+        });
+        keys.add(key);
+        tasks.add(task);
+        return task;
+    }
+
+    private static void replayScenarios(List<Object> parts, CucumberFeature feature, KarateJunitAndJsonReporter reporter) throws Exception {
+        // same sequence of events as CucumberFeature.run()
+        reporter.uri(feature.getPath());
+        reporter.feature(feature.getGherkinFeature());
+        KarateRecordingReporter last = null;
+        for (Object part : parts) {
+            if (part instanceof CucumberScenarioOutline) {
+                ((CucumberScenarioOutline) part).formatOutlineScenario(reporter);
+            } else if (part instanceof CucumberExamples) {
+                ((CucumberExamples) part).format(reporter);
+            } else {
+                last = ((Future<KarateRecordingReporter>) part).get();
+                last.replay(reporter);
+                if (last.getFailureReason() != null && reporter.getFailureReason() == null) {
+                    reporter.setFailureReason(last.getFailureReason());
+                }
+            }
+        }
+        reporter.eof();
+        if (last != null && last.getRuntime() != null) {
+            last.getRuntime().afterFeature();
+        }
+    }
+
     private static void filterOnTags(CucumberFeature feature) throws TagFilterException {
         final List<CucumberTagStatement> featureElements = feature.getFeatureElements();
         ServiceLoader<TagFilter> loader = ServiceLoader.load(TagFilter.class);
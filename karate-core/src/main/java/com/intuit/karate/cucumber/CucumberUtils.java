@@ -165,7 +165,7 @@ public class CucumberUtils {
         return backend.getStepDefs().getContext().getVars();
     }
 
-    private static boolean isMatchingScenario(ScenarioWrapper scenario, KarateBackend backend) {
+    protected static boolean isMatchingScenario(ScenarioWrapper scenario, KarateBackend backend) {
         String expression = StringUtils.trimToNull(scenario.getNameAndDescription());
         ScriptContext context = backend.getStepDefs().getContext();
         if (expression == null) {
@@ -235,7 +235,7 @@ public class CucumberUtils {
         }
         StepDefinitionMatch match;
         try {
-            match = backend.getGlue().stepDefinitionMatch(featurePath, step, i18n);
+            match = backend.stepDefinitionMatch(featurePath, step, i18n);
         } catch (AmbiguousStepDefinitionsException e) {
             match = e.getMatches().get(0);
             Result result = new Result(Result.FAILED, 0L, e, KarateReporterBase.DUMMY_OBJECT);
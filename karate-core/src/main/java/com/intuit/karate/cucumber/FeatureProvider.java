@@ -26,9 +26,18 @@ package com.intuit.karate.cucumber;
 import com.intuit.karate.CallContext;
 import com.intuit.karate.Script;
 import com.intuit.karate.ScriptBindings;
+import com.intuit.karate.ScriptBridge;
 import com.intuit.karate.ScriptContext;
+import com.intuit.karate.ScriptValue;
 import com.intuit.karate.ScriptValueMap;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  *
@@ -37,9 +46,13 @@ import java.util.Map;
 public class FeatureProvider {
     
     private final FeatureWrapper feature;
+    private final ScenarioRouter router;
     private final KarateBackend backend;
     private final boolean ssl;
     private final boolean corsEnabled;
+    private final boolean concurrent;
+    // in concurrent mode, the bridge of the forked context handling a request on this thread
+    private final ThreadLocal<ScriptBridge> currentBridge = new ThreadLocal();
     
     public FeatureProvider(FeatureWrapper feature) {
         this(feature, null, false);
@@ -55,6 +68,10 @@ public class FeatureProvider {
 
     public boolean isCorsEnabled() {
         return corsEnabled;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
     }        
     
     public final ScriptContext getContext() {
@@ -65,18 +82,40 @@ public class FeatureProvider {
         String function = "function(s){ return " + ScriptBindings.KARATE  + "." + name + "(s) }";
         context.getVars().put(name, Script.evalJsExpression(function, context));
     }
+    
+    private static void putBindings(ScriptContext context) {
+        putBinding(ScriptBindings.PATH_MATCHES, context);
+        putBinding(ScriptBindings.METHOD_IS, context);
+        putBinding(ScriptBindings.PARAM_VALUE, context);
+        putBinding(ScriptBindings.TYPE_CONTAINS, context);
+        putBinding(ScriptBindings.ACCEPT_CONTAINS, context);        
+    }
+    
+    private ScriptBridge getBridge() {
+        ScriptBridge bridge = currentBridge.get();
+        return bridge == null ? new ScriptBridge(getContext()) : bridge;
+    }
+    
+    /**
+     * the helpers are created once and inherited by every forked context, and
+     * act on the context that is handling the request on the calling thread
+     */
+    private void putConcurrentBindings(ScriptValueMap vars) {
+        vars.put(ScriptBindings.PATH_MATCHES, (Function<String, Object>) s -> getBridge().pathMatches(s));
+        vars.put(ScriptBindings.METHOD_IS, (Function<String, Object>) s -> getBridge().methodIs(s));
+        vars.put(ScriptBindings.PARAM_VALUE, (Function<String, Object>) s -> getBridge().paramValue(s));
+        vars.put(ScriptBindings.TYPE_CONTAINS, (Function<String, Object>) s -> getBridge().typeContains(s));
+        vars.put(ScriptBindings.ACCEPT_CONTAINS, (Function<String, Object>) s -> getBridge().acceptContains(s));
+    }
         
     public FeatureProvider(FeatureWrapper feature, Map<String, Object> vars, boolean ssl) {
         this.feature = feature;
         this.ssl = ssl;
+        router = ScenarioRouter.build(feature);
         CallContext callContext = new CallContext(null, 0, null, -1, false, false, null);
         backend = CucumberUtils.getBackendWithGlue(feature.getEnv(), callContext);
         ScriptContext context = getContext();
-        putBinding(ScriptBindings.PATH_MATCHES, context);
-        putBinding(ScriptBindings.METHOD_IS, context);
-        putBinding(ScriptBindings.PARAM_VALUE, context);
-        putBinding(ScriptBindings.TYPE_CONTAINS, context);
-        putBinding(ScriptBindings.ACCEPT_CONTAINS, context);
+        putBindings(context);
         if (vars != null) {            
             ScriptValueMap backendVars = backend.getVars();
             vars.forEach((k, v) -> backendVars.put(k, v));
@@ -85,12 +124,95 @@ public class FeatureProvider {
         // this is a special case, we support the auto-handling of cors
         // only if '* configure cors = true' has been done in the Background
         corsEnabled = context.getConfig().isCorsEnabled();
-    }        
+        // same for '* configure concurrent = true'
+        concurrent = context.getConfig().isConcurrentEnabled();
+        if (concurrent) {
+            toConcurrentStore(context.getVars());
+            putConcurrentBindings(context.getVars());
+        }
+    }
+    
+    /**
+     * json objects and arrays set up in the Background are the 'database' that all
+     * requests share, so in concurrent mode they are swapped (all the way down) for
+     * synchronized collections, which keep key order and null values - note that
+     * reading the whole of a shared object is not atomic against concurrent writes
+     */
+    private static void toConcurrentStore(ScriptValueMap vars) {
+        for (String key : new ArrayList<>(vars.keySet())) {
+            ScriptValue sv = vars.get(key); // resolves lazy entries
+            switch (sv.getType()) {
+                case JSON:
+                    Object json = sv.getValue(DocumentContext.class).read("$");
+                    vars.put(key, new ScriptValue(JsonPath.parse(toSynchronized(json))));
+                    break;
+                case MAP:
+                case LIST:
+                    vars.put(key, new ScriptValue(toSynchronized(sv.getValue())));
+                    break;
+                default:
+            }
+        }
+    }
+    
+    private static Object toSynchronized(Object o) {
+        if (o instanceof Map) {
+            Map<String, Object> map = (Map) o;
+            Map<String, Object> copy = new LinkedHashMap(map.size());
+            map.forEach((k, v) -> copy.put(k, toSynchronized(v)));
+            return Collections.synchronizedMap(copy);
+        } else if (o instanceof List) {
+            List list = (List) o;
+            List copy = new ArrayList(list.size());
+            for (Object item : list) {
+                copy.add(toSynchronized(item));
+            }
+            return Collections.synchronizedList(copy);
+        } else {
+            return o;
+        }
+    }
     
     public ScriptValueMap handle(ScriptValueMap vars) {
-        backend.getVars().putAll(vars);
-        CucumberUtils.call(feature, backend, CallType.SCENARIO_ONLY);
-        return getContext().getVars();
+        return call(vars).getVars();
+    }
+    
+    /**
+     * runs the first matching scenario and returns the context it ran in, which in
+     * concurrent mode is forked from the Background state for each request - so
+     * callers need no locking and request variables never leak across requests
+     */
+    public ScriptContext call(ScriptValueMap vars) {
+        if (!concurrent) {
+            return call(backend, vars);
+        }
+        KarateBackend forked = fork();
+        currentBridge.set(new ScriptBridge(forked.getStepDefs().getContext()));
+        try {
+            return call(forked, vars);
+        } finally {
+            currentBridge.remove();
+        }
+    }
+    
+    private ScriptContext call(KarateBackend target, ScriptValueMap vars) {
+        target.getVars().putAll(vars);
+        if (router == null) {
+            CucumberUtils.call(feature, target, CallType.SCENARIO_ONLY);
+        } else {
+            ScenarioWrapper scenario = router.route(target);
+            if (scenario == null) {
+                target.getEnv().logger.warn("no scenarios matched");
+            } else {
+                CucumberUtils.call(scenario, target, CallType.SCENARIO_ONLY);
+            }
+        }
+        return target.getStepDefs().getContext();
+    }
+    
+    private KarateBackend fork() {
+        CallContext callContext = new CallContext(getContext(), 0, null, -1, false, false, null);
+        return CucumberUtils.getBackendWithGlue(feature.getEnv(), callContext);
     }
     
 }
@@ -80,7 +80,15 @@ public class FeatureWrapper {
         return new FeatureWrapper(text, scriptEnv, path);
     }
 
+    public FeatureWrapper withEnv(ScriptEnv scriptEnv) {
+        return new FeatureWrapper(this, scriptEnv);
+    }
+
     public String joinLines(int startLine, int endLine) {
+        return joinLines(lines, startLine, endLine);
+    }
+
+    private static String joinLines(List<String> lines, int startLine, int endLine) {
         StringBuilder sb = new StringBuilder();
         if (endLine > lines.size() - 1) {
             endLine = lines.size() - 1;
@@ -117,9 +125,15 @@ public class FeatureWrapper {
         return text;
     }
 
+    // the lines may be shared with cached copies, so always edit a copy
+    private FeatureWrapper rebuild(List<String> temp) {
+        return new FeatureWrapper(joinLines(temp, 0, temp.size()), scriptEnv, path);
+    }
+
     public FeatureWrapper addLine(int index, String line) {
-        lines.add(index, line);
-        return new FeatureWrapper(joinLines(), scriptEnv, path);
+        List<String> temp = new ArrayList(lines);
+        temp.add(index, line);
+        return rebuild(temp);
     }
 
     public FeatureSection getSection(int sectionIndex) {
@@ -146,16 +160,27 @@ public class FeatureWrapper {
     }
 
     public FeatureWrapper replaceLines(int start, int end, String text) {
+        List<String> temp = new ArrayList(lines);
         for (int i = start; i < end; i++) {
-            lines.remove(start);
+            temp.remove(start);
         }
-        lines.set(start, text);
-        return new FeatureWrapper(joinLines(), scriptEnv, path);
+        temp.set(start, text);
+        return rebuild(temp);
     }
 
     public FeatureWrapper removeLine(int index) {
-        lines.remove(index);
-        return new FeatureWrapper(joinLines(), scriptEnv, path);
+        List<String> temp = new ArrayList(lines);
+        temp.remove(index);
+        return rebuild(temp);
+    }
+
+    private FeatureWrapper(FeatureWrapper parsed, ScriptEnv scriptEnv) {
+        this.path = parsed.path;
+        this.text = parsed.text;
+        this.lines = parsed.lines;
+        this.feature = parsed.feature;
+        this.featureSections = parsed.featureSections;
+        this.scriptEnv = scriptEnv;
     }
 
     private FeatureWrapper(String text, ScriptEnv scriptEnv, String path) {
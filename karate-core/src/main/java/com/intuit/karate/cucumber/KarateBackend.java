@@ -28,15 +28,25 @@ import com.intuit.karate.ScriptEnv;
 import com.intuit.karate.ScriptValueMap;
 import com.intuit.karate.StepDefs;
 import cucumber.runtime.Backend;
-import cucumber.runtime.ClassFinder;
 import cucumber.runtime.Glue;
+import cucumber.runtime.RuntimeGlue;
+import cucumber.runtime.StepDefinition;
+import cucumber.runtime.StepDefinitionMatch;
+import cucumber.runtime.UndefinedStepsTracker;
 import cucumber.runtime.UnreportedStepExecutor;
 import cucumber.runtime.java.JavaBackend;
 import cucumber.runtime.snippets.FunctionNameGenerator;
+import cucumber.runtime.xstream.LocalizedXStreams;
+import gherkin.I18n;
+import gherkin.formatter.Argument;
 import gherkin.formatter.model.Step;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -44,9 +54,77 @@ import java.util.Map;
  */
 public class KarateBackend implements Backend {    
     
-    private final JavaBackend backend;
+    private static final JavaBackend TEMPLATE = new JavaBackend(new KarateObjectFactory(null, null), 
+            new KarateClassFinder(KarateBackend.class.getClassLoader()));
+    
+    // the step-defs never change, so reflect and compile the regexes only once
+    private static final Map<StepDefinition, Method> STEP_DEFS = getStepDefinitions();
+    
+    private static Map<StepDefinition, Method> getStepDefinitions() {
+        Map<StepDefinition, Method> map = new LinkedHashMap();
+        Method[] current = new Method[1];
+        ClassLoader classLoader = KarateBackend.class.getClassLoader();
+        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(classLoader)) {
+            @Override
+            public void addStepDefinition(StepDefinition stepDefinition) {
+                super.addStepDefinition(stepDefinition);
+                map.put(stepDefinition, current[0]);
+            }
+        };
+        Class glueCodeClass = StepDefs.class;
+        for (Method method : glueCodeClass.getMethods()) {
+            current[0] = method;
+            TEMPLATE.loadGlue(glue, method, glueCodeClass);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+    
+    private static final int STEP_MATCH_CACHE_SIZE = 10000;
+    
+    // the same step text always resolves to the same step-def and arguments
+    private static final Map<String, StepMatch> STEP_MATCH_CACHE = new ConcurrentHashMap();
+    
+    private static class StepMatch {
+        
+        final StepDefinition stepDefinition;
+        final List<Argument> arguments;
+        
+        StepMatch(StepDefinition stepDefinition, List<Argument> arguments) {
+            this.stepDefinition = stepDefinition;
+            this.arguments = arguments;
+        }
+        
+    }
+    
+    private static StepMatch getStepMatch(Step step) {
+        String text = step.getName();
+        StepMatch cached = STEP_MATCH_CACHE.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        StepMatch found = null;
+        for (StepDefinition sd : STEP_DEFS.keySet()) {
+            List<Argument> arguments = sd.matchedArguments(step);
+            if (arguments != null) {
+                if (found != null) { // ambiguous, let the glue report it
+                    return null;
+                }
+                found = new StepMatch(sd, Collections.unmodifiableList(arguments));
+            }
+        }
+        if (found != null) {
+            if (STEP_MATCH_CACHE.size() >= STEP_MATCH_CACHE_SIZE) {
+                STEP_MATCH_CACHE.clear();
+            }
+            STEP_MATCH_CACHE.put(text, found);
+        }
+        return found;
+    }
+    
     private final KarateObjectFactory objectFactory;
     private final CallContext callContext;
+    private final Map<StepDefinition, StepDefinition> boundStepDefs = new HashMap(STEP_DEFS.size());
+    private LocalizedXStreams localizedXStreams;
     private Glue glue;
 
     public void setTags(List<String> tags) {
@@ -91,9 +169,7 @@ public class KarateBackend implements Backend {
     
     public KarateBackend(ScriptEnv env, CallContext callContext) {
         this.callContext = callContext;
-        ClassFinder classFinder = new KarateClassFinder(env.fileClassLoader);
         objectFactory = new KarateObjectFactory(env, callContext);
-        backend = new JavaBackend(objectFactory, classFinder);
     }
 
     public KarateObjectFactory getObjectFactory() {
@@ -119,30 +195,44 @@ public class KarateBackend implements Backend {
     @Override
     public void loadGlue(Glue glue, List<String> NOT_USED) {
         this.glue = glue;
-        Class glueCodeClass = StepDefs.class;
-        for (Method method : glueCodeClass.getMethods()) {
-            backend.loadGlue(glue, method, glueCodeClass);
-        }         
+        for (Map.Entry<StepDefinition, Method> entry : STEP_DEFS.entrySet()) {
+            StepDefinition bound = new KarateStepDefinition(entry.getKey(), entry.getValue(), objectFactory);
+            boundStepDefs.put(entry.getKey(), bound);
+            glue.addStepDefinition(bound);
+        }
+    }
+    
+    public StepDefinitionMatch stepDefinitionMatch(String featurePath, Step step, I18n i18n) {
+        StepMatch stepMatch = getStepMatch(step);
+        if (stepMatch == null) { // undefined or ambiguous
+            return glue.stepDefinitionMatch(featurePath, step, i18n);
+        }
+        if (localizedXStreams == null) {
+            localizedXStreams = new LocalizedXStreams(Thread.currentThread().getContextClassLoader());
+        }
+        StepDefinition bound = boundStepDefs.get(stepMatch.stepDefinition);
+        return new StepDefinitionMatch(stepMatch.arguments, bound, featurePath, step, localizedXStreams);
     }
 
     @Override
     public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
-        backend.setUnreportedStepExecutor(executor);
+        // not used
     }
 
     @Override
     public void buildWorld() {
-        backend.buildWorld();
+        objectFactory.start();
+        glue.removeScenarioScopedGlue();
     }
 
     @Override
     public void disposeWorld() {
-        backend.disposeWorld();
+        objectFactory.stop();
     }
 
     @Override
     public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
-        return backend.getSnippet(step, functionNameGenerator);
+        return TEMPLATE.getSnippet(step, functionNameGenerator);
     }
     
 }
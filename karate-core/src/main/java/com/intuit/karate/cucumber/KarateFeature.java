@@ -23,6 +23,7 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.CallCache;
 import com.intuit.karate.FileUtils;
 import cucumber.runtime.model.CucumberFeature;
 import java.io.File;
@@ -69,6 +70,10 @@ public class KarateFeature {
         return runtimeOptions.getRuntime(file, reporter);
     }
     
+    public KarateRuntime getRuntime(KarateReporter reporter, CallCache callCache) {
+        return runtimeOptions.getRuntime(file, reporter, callCache);
+    }
+    
     public KarateJunitAndJsonReporter getReporter(String reportDirPath) {
         File reportDir = new File(reportDirPath);
         String featurePackagePath = FileUtils.toPackageQualifiedName(feature.getPath());
@@ -280,7 +280,11 @@ public class KarateHtmlReporter extends KarateReporterBase {
 
     @Override
     public void done() {
-        formatter.done();
+        try {
+            formatter.done();
+        } finally { // stop collecting logs for this thread
+            logAppender.detach();
+        }
     }
 
     @Override
@@ -146,8 +146,12 @@ public class KarateJunitAndJsonReporter extends KarateReporterBase {
 
     @Override
     public void done() {
-        junit.done();
-        json.done();
+        try {
+            junit.done();
+            json.done();
+        } finally { // stop collecting logs for this thread
+            logAppender.detach();
+        }
     }
 
     @Override
@@ -38,24 +38,23 @@ import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
@@ -70,6 +69,10 @@ import org.slf4j.LoggerFactory;
 /**
  *
  * adapted from cucumber.runtime.formatter.JUnitFormatter
+ * 
+ * each testcase element is streamed out as soon as its scenario ends, since the
+ * totals on the root testsuite element are only known at the very end, the
+ * testcase elements go to a temp file which is copied into the report in done()
  *
  * @author pthomas3
  */
@@ -77,12 +80,15 @@ public class KarateJunitFormatter implements Formatter, Reporter {
 
     private static final Logger logger = LoggerFactory.getLogger(KarateJunitFormatter.class);
 
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     private final Writer out;
-    private final Document doc;
-    private final Element rootElement;
+    private final File bodyFile;
+    private final AttributeEscapingWriter bodyOut;
+    private final XMLStreamWriter body;
 
+    private Feature feature;
     private TestCase testCase;
-    private Element currentElement;
 
     private final String featurePath;
     private final String reportPath;
@@ -130,19 +136,18 @@ public class KarateJunitFormatter implements Formatter, Reporter {
         logger.trace(">> {}", reportPath);
         URL url = FileUtils.toFileUrl(reportPath);
         this.out = new UTF8OutputStreamWriter(new URLOutputStream(url));
+        bodyFile = File.createTempFile("karate-junit-", ".xml");
+        bodyOut = new AttributeEscapingWriter(new OutputStreamWriter(new FileOutputStream(bodyFile), StandardCharsets.UTF_8));
         try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            rootElement = doc.createElement("testsuite");
-            doc.appendChild(rootElement);
-        } catch (ParserConfigurationException e) {
+            body = XML_OUTPUT_FACTORY.createXMLStreamWriter(bodyOut);
+        } catch (XMLStreamException e) {
             throw new CucumberException("Error while processing unit report", e);
         }
     }
 
     @Override
     public void feature(Feature feature) {
-        testCase = new TestCase();
-        testCase.feature = feature;
+        this.feature = feature;
     }
 
     @Override
@@ -161,44 +166,58 @@ public class KarateJunitFormatter implements Formatter, Reporter {
     @Override
     public void done() {
         try {
-            String featureName = StringUtils.trimToNull(testCase.feature.getName());
-            if (featureName == null) {
-                featureName = featurePath;
+            if (testCase != null) { // scenario did not end cleanly
+                writeTestCase();
             }
-            rootElement.setAttribute("name", featureName);
-            testCount = Integer.valueOf(rootElement.getAttribute("tests"));
-            failCount = rootElement.getElementsByTagName("failure").getLength();
-            rootElement.setAttribute("failures", String.valueOf(failCount));
-            skipCount = rootElement.getElementsByTagName("skipped").getLength();
-            rootElement.setAttribute("skipped", String.valueOf(skipCount));
-            timeTaken = sumTimes(rootElement.getElementsByTagName("testcase"));
-            rootElement.setAttribute("time", formatTime(timeTaken));
             printStatsToConsole();
-            if (rootElement.getElementsByTagName("testcase").getLength() == 0) {
+            if (testCount == 0) {
                 addDummyTestCase(); // to avoid failed Jenkins jobs
             }
-            TransformerFactory transfac = TransformerFactory.newInstance();
-            Transformer trans = transfac.newTransformer();
-            trans.setOutputProperty(OutputKeys.INDENT, "yes");
-            StreamResult result = new StreamResult(out);
-            DOMSource source = new DOMSource(doc);
-            trans.transform(source, result);
-        } catch (TransformerException e) {
-            throw new CucumberException("Error while transforming.", e);
+            body.close();
+            bodyOut.close();
+            String featureName = feature == null ? null : StringUtils.trimToNull(feature.getName());
+            if (featureName == null) {
+                featureName = featurePath;
+            }
+            XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(out);
+            xml.writeStartDocument("UTF-8", "1.0");
+            newLine(xml);
+            xml.writeStartElement("testsuite");
+            xml.writeAttribute("failures", String.valueOf(failCount));
+            xml.writeAttribute("name", featureName);
+            xml.writeAttribute("skipped", String.valueOf(skipCount));
+            xml.writeAttribute("tests", String.valueOf(testCount));
+            xml.writeAttribute("time", formatTime(timeTaken));
+            newLine(xml);
+            xml.flush();
+            try (Reader reader = new InputStreamReader(new FileInputStream(bodyFile), StandardCharsets.UTF_8)) {
+                char[] buffer = new char[8192];
+                int count;
+                while ((count = reader.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                }
+            }
+            xml.writeEndElement();
+            newLine(xml);
+            xml.writeEndDocument();
+            xml.close();
+            out.close();
+        } catch (XMLStreamException | IOException e) {
+            throw new CucumberException("Error while writing unit report", e);
+        } finally {
+            bodyFile.delete();
         }
         logger.trace("<< {}", reportPath);
     }
 
     @Override
     public void startOfScenarioLifeCycle(Scenario scenario) {
-        testCase.steps.clear();
-        testCase.results.clear();
+        if (testCase != null) { // previous scenario did not end cleanly
+            writeTestCase();
+        }
         currentScenario++;
-        testCase.scenario = scenario;
-        currentElement = testCase.createTestCaseElement(doc);
-        testCase.writeElement(currentElement);
-        rootElement.appendChild(currentElement);
-        increaseAttributeValue(rootElement, "tests");
+        testCount++;
+        testCase = new TestCase(scenario);
     }
 
     @Override
@@ -208,82 +227,56 @@ public class KarateJunitFormatter implements Formatter, Reporter {
 
     @Override
     public void endOfScenarioLifeCycle(Scenario scenario) {
-        if (testCase.steps.isEmpty()) {
-            testCase.handleEmptyTestCase(doc, currentElement);
+        writeTestCase();
+    }
+
+    private void writeTestCase() {
+        try {
+            testCase.write(body);
+            body.flush();
+        } catch (XMLStreamException e) {
+            throw new CucumberException("Error while writing unit report", e);
         }
+        testCase = null;
     }
 
-    private void addDummyTestCase() {
-        Element dummy = doc.createElement("testcase");
-        dummy.setAttribute("classname", "dummy");
-        dummy.setAttribute("name", "dummy");
-        rootElement.appendChild(dummy);
-        Element skipped = doc.createElement("skipped");
-        skipped.setAttribute("message", "No features found");
-        dummy.appendChild(skipped);
+    private void addDummyTestCase() throws XMLStreamException {
+        body.writeStartElement("testcase");
+        body.writeAttribute("classname", "dummy");
+        body.writeAttribute("name", "dummy");
+        newLine(body);
+        body.writeEmptyElement("skipped");
+        body.writeAttribute("message", "No features found");
+        newLine(body);
+        body.writeEndElement();
+        newLine(body);
     }
 
     @Override
     public void result(Result result) {
         testCase.results.add(result);
-        testCase.updateElement(currentElement);
     }
 
-    private double sumTimes(NodeList testCaseNodes) {
-        double totalDurationSecondsForAllTimes = 0.0d;
-        for (int i = 0; i < testCaseNodes.getLength(); i++) {
-            try {
-                double testCaseTime
-                        = Double.parseDouble(testCaseNodes.item(i).getAttributes().getNamedItem("time").getNodeValue());
-                totalDurationSecondsForAllTimes += testCaseTime;
-            } catch (NumberFormatException e) {
-                throw new CucumberException(e);
-            } catch (NullPointerException e) {
-                throw new CucumberException(e);
-            }
-        }
-        return totalDurationSecondsForAllTimes;
+    private static void newLine(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeCharacters("\n");
     }
 
-    private String formatTime(double time) {
+    private static String formatTime(double time) {
         DecimalFormat nfmt = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
         nfmt.applyPattern("0.######");
         return nfmt.format(time);
     }
 
-    private void increaseAttributeValue(Element element, String attribute) {
-        int value = 0;
-        if (element.hasAttribute(attribute)) {
-            value = Integer.parseInt(element.getAttribute(attribute));
-        }
-        element.setAttribute(attribute, String.valueOf(++value));
-    }
-
     private class TestCase {
 
-        private final DecimalFormat NUMBER_FORMAT = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
+        final Scenario scenario;
+        final String name;
+        final List<Step> steps = new ArrayList();
+        final List<Result> results = new ArrayList();
 
         private TestCase(Scenario scenario) {
             this.scenario = scenario;
-            NUMBER_FORMAT.applyPattern("0.######");
-        }
-
-        private TestCase() {
-            this(null);
-        }
-
-        Scenario scenario;
-        private Feature feature;        
-        final List<Step> steps = new ArrayList();
-        final List<Result> results = new ArrayList();        
-
-        private Element createTestCaseElement(Document doc) {
-            return doc.createElement("testcase");
-        }
-
-        private void writeElement(Element tc) {
-            tc.setAttribute("classname", featurePath);
-            tc.setAttribute("name", calculateElementName(scenario));
+            this.name = calculateElementName(scenario);
         }
 
         private String calculateElementName(Scenario scenario) {
@@ -298,54 +291,55 @@ public class KarateJunitFormatter implements Formatter, Reporter {
             }
         }
 
-        public void updateElement(Element tc) {
-            tc.setAttribute("time", calculateTotalDurationString());
-            StringBuilder sb = new StringBuilder();
-            addStepAndResultListing(sb);
-            Result skipped = null, failed = null;
-            for (Result result : results) {
-                if ("failed".equals(result.getStatus())) {
-                    failed = result;
-                }
-                if ("undefined".equals(result.getStatus()) || "pending".equals(result.getStatus())) {
-                    skipped = result;
+        private void write(XMLStreamWriter xml) throws XMLStreamException {
+            double time = calculateTotalDuration();
+            timeTaken += time;
+            xml.writeStartElement("testcase");
+            xml.writeAttribute("classname", featurePath);
+            xml.writeAttribute("name", name);
+            xml.writeAttribute("time", formatTime(time));
+            newLine(xml);
+            if (steps.isEmpty()) {
+                skipCount++;
+                writeElement(xml, new StringBuilder(), "skipped", "The scenario has no steps");
+            } else if (!results.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                addStepAndResultListing(sb);
+                Result skipped = null, failed = null;
+                for (Result result : results) {
+                    if ("failed".equals(result.getStatus())) {
+                        failed = result;
+                    }
+                    if ("undefined".equals(result.getStatus()) || "pending".equals(result.getStatus())) {
+                        skipped = result;
+                    }
                 }
-            }
-            Element child;
-            if (failed != null) {
-                addStackTrace(sb, failed);
-                child = createElementWithMessage(doc, sb, "failure", failed.getErrorMessage());
-                if (failMessages == null) {
-                    // TODO investigate why a set is needed, a list ends up with mysterious duplicates
-                    failMessages = new LinkedHashSet();
+                if (failed != null) {
+                    failCount++;
+                    addStackTrace(sb, failed);
+                    writeElement(xml, sb, "failure", failed.getErrorMessage());
+                    if (failMessages == null) {
+                        // TODO investigate why a set is needed, a list ends up with mysterious duplicates
+                        failMessages = new LinkedHashSet();
+                    }
+                    failMessages.add(failed.getErrorMessage());
+                } else if (skipped != null) {
+                    skipCount++;
+                    writeElement(xml, sb, "skipped", null);
+                } else {
+                    writeElement(xml, sb, "system-out", null);
                 }
-                failMessages.add(failed.getErrorMessage());
-            } else if (skipped != null) {
-                child = createElement(doc, sb, "skipped");
-            } else {
-                child = createElement(doc, sb, "system-out");
-            }
-            Node existingChild = tc.getFirstChild();
-            if (existingChild == null) {
-                tc.appendChild(child);
-            } else {
-                tc.replaceChild(child, existingChild);
             }
+            xml.writeEndElement();
+            newLine(xml);
         }
 
-        public void handleEmptyTestCase(Document doc, Element tc) {
-            tc.setAttribute("time", calculateTotalDurationString());
-            Element child = createElementWithMessage(doc, new StringBuilder(), "skipped", "The scenario has no steps");
-            tc.appendChild(child);
-        }
-
-        private String calculateTotalDurationString() {
+        private double calculateTotalDuration() {
             long totalDurationNanos = 0;
             for (Result r : results) {
                 totalDurationNanos += r.getDuration() == null ? 0 : r.getDuration();
             }
-            double totalDurationSeconds = ((double) totalDurationNanos) / 1000000000;
-            return NUMBER_FORMAT.format(totalDurationSeconds);
+            return ((double) totalDurationNanos) / 1000000000;
         }
 
         private void addStepAndResultListing(StringBuilder sb) {
@@ -372,16 +366,62 @@ public class KarateJunitFormatter implements Formatter, Reporter {
             sb.append(sw.toString());
         }
 
-        private Element createElementWithMessage(Document doc, StringBuilder sb, String elementType, String message) {
-            Element child = createElement(doc, sb, elementType);
-            child.setAttribute("message", message);
-            return child;
+        private void writeElement(XMLStreamWriter xml, StringBuilder sb, String elementType, String message) throws XMLStreamException {
+            xml.writeStartElement(elementType);
+            if (message != null) {
+                xml.flush();
+                bodyOut.escaping = true;
+                xml.writeAttribute("message", message);
+                xml.flush();
+                bodyOut.escaping = false;
+            }
+            // a cdata section cannot contain the end marker, so split it across sections
+            String text = sb.toString();
+            int pos;
+            while ((pos = text.indexOf("]]>")) != -1) {
+                xml.writeCData(text.substring(0, pos + 2));
+                text = text.substring(pos + 2);
+            }
+            xml.writeCData(text);
+            xml.writeEndElement();
+            newLine(xml);
+        }
+
+    }
+
+    // the stax writer leaves line-breaks and tabs in attribute values as-is, which
+    // parsers would normalize to spaces, so they are escaped on the way out
+    private static class AttributeEscapingWriter extends FilterWriter {
+
+        boolean escaping;
+
+        AttributeEscapingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (escaping && (c == '\n' || c == '\r' || c == '\t')) {
+                out.write("&#" + c + ";");
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            if (escaping) {
+                for (int i = off; i < off + len; i++) {
+                    write(chars[i]);
+                }
+            } else {
+                out.write(chars, off, len);
+            }
         }
 
-        private Element createElement(Document doc, StringBuilder sb, String elementType) {
-            Element child = doc.createElement(elementType);
-            child.appendChild(doc.createCDATASection(sb.toString()));
-            return child;
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            write(str.toCharArray(), off, len);
         }
 
     }
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.CallContext;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * records the report events for a single scenario when scenarios of a feature
+ * are run in parallel, so that they can be replayed in the right order into
+ * the one report for the whole feature
+ *
+ * must be created on the thread that runs the scenario, because the log
+ * appender only collects logs for the thread it was created on
+ *
+ * @author pthomas3
+ */
+public class KarateRecordingReporter extends KarateReporterBase {
+
+    private final List<Consumer<KarateReporter>> events = new ArrayList();
+
+    private KarateRuntime runtime;
+    private Exception failureReason;
+
+    public void setRuntime(KarateRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    public KarateRuntime getRuntime() {
+        return runtime;
+    }
+
+    public void setFailureReason(Exception failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public Exception getFailureReason() {
+        return failureReason;
+    }
+
+    public void replay(KarateReporter reporter) {
+        for (Consumer<KarateReporter> event : events) {
+            event.accept(reporter);
+        }
+    }
+
+    @Override
+    public void done() { // called by the runner when the scenario is complete
+        logAppender.detach();
+    }
+
+    @Override
+    public void karateStepProceed(Step step, Match match, Result result, CallContext callContext) {
+        events.add(r -> r.karateStepProceed(step, match, result, callContext));
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+        events.add(r -> r.syntaxError(state, event, legalEvents, uri, line));
+    }
+
+    @Override
+    public void uri(String uri) {
+        events.add(r -> r.uri(uri));
+    }
+
+    @Override
+    public void feature(Feature feature) {
+        events.add(r -> r.feature(feature));
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+        events.add(r -> r.scenarioOutline(scenarioOutline));
+    }
+
+    @Override
+    public void examples(Examples examples) {
+        events.add(r -> r.examples(examples));
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        events.add(r -> r.startOfScenarioLifeCycle(scenario));
+    }
+
+    @Override
+    public void background(Background background) {
+        events.add(r -> r.background(background));
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+        events.add(r -> r.scenario(scenario));
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        events.add(r -> r.endOfScenarioLifeCycle(scenario));
+    }
+
+    @Override
+    public void close() {
+        // the target reporter is closed by the caller
+    }
+
+    @Override
+    public void eof() {
+        events.add(r -> r.eof());
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        events.add(r -> r.before(match, result));
+    }
+
+    @Override
+    public void result(Result result) {
+        events.add(r -> r.result(result));
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        events.add(r -> r.after(match, result));
+    }
+
+    @Override
+    public void match(Match match) {
+        events.add(r -> r.match(match));
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        events.add(r -> r.embedding(mimeType, data));
+    }
+
+    @Override
+    public void write(String text) {
+        events.add(r -> r.write(text));
+    }
+
+}
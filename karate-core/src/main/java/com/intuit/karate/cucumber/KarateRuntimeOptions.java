@@ -23,6 +23,7 @@
  */
 package com.intuit.karate.cucumber;
 
+import com.intuit.karate.CallCache;
 import com.intuit.karate.CallContext;
 import com.intuit.karate.ScriptEnv;
 import cucumber.runtime.RuntimeGlue;
@@ -60,8 +61,12 @@ public class KarateRuntimeOptions {
     }
     
     public KarateRuntime getRuntime(File file, KarateReporter reporter) {
+        return getRuntime(file, reporter, new CallCache());
+    }
+    
+    public KarateRuntime getRuntime(File file, KarateReporter reporter, CallCache callCache) {
         File featureDir = file.getParentFile();
-        ScriptEnv env = new ScriptEnv(null, featureDir, file.getName(), classLoader, reporter);
+        ScriptEnv env = new ScriptEnv(null, featureDir, file.getName(), classLoader, callCache, reporter);
         CallContext callContext = new CallContext(null, 0, null, -1, false, true, null);
         KarateBackend backend = new KarateBackend(env, callContext);
         RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(classLoader));
@@ -39,6 +39,7 @@ public class KarateStats {
     private double timeTaken;    
     private final long startTime;
     private long endTime;
+    private double predictedMakespan = -1;
     private Map<String, String> failedMap;
     private Throwable failureReason;
     
@@ -94,6 +95,9 @@ public class KarateStats {
                 featureCount, threadCount, efficiency));
         System.out.println(String.format("scenarios: %4d | failed: %4d | skipped: %4d", 
                 testCount, failCount, skipCount));
+        if (predictedMakespan >= 0) {
+            System.out.println(String.format("makespan: %.2f | predicted: %.2f", getMakespan(), predictedMakespan));
+        }
         System.out.println("====================================================");
         if (failedMap != null) {
             System.out.println("failed features:");
@@ -142,6 +146,21 @@ public class KarateStats {
         return endTime;
     }
 
+    public double getMakespan() {
+        return (endTime - startTime) / 1000d;
+    }
+
+    public void setPredictedMakespan(double predictedMakespan) {
+        this.predictedMakespan = predictedMakespan;
+    }
+
+    /**
+     * @return the makespan (in seconds) predicted from the timings of previous runs, -1 if there were none
+     */
+    public double getPredictedMakespan() {
+        return predictedMakespan;
+    }
+
     public Map<String, String> getFailedMap() {
         return failedMap;
     }        
@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import cucumber.api.java.ObjectFactory;
+import cucumber.runtime.ParameterInfo;
+import cucumber.runtime.StepDefinition;
+import cucumber.runtime.Utils;
+import gherkin.I18n;
+import gherkin.formatter.Argument;
+import gherkin.formatter.model.Step;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * binds one of the shared (and immutable) step definitions to the object
+ * factory of a single backend, so that the reflection and regex compilation
+ * happens only once and not for every feature call
+ *
+ * @author pthomas3
+ */
+public class KarateStepDefinition implements StepDefinition {
+
+    private final StepDefinition shared;
+    private final Method method;
+    private final ObjectFactory objectFactory;
+
+    public KarateStepDefinition(StepDefinition shared, Method method, ObjectFactory objectFactory) {
+        this.shared = shared;
+        this.method = method;
+        this.objectFactory = objectFactory;
+    }
+
+    @Override
+    public void execute(I18n i18n, Object[] args) throws Throwable {
+        Utils.invoke(objectFactory.getInstance(method.getDeclaringClass()), method, 0, args);
+    }
+
+    @Override
+    public List<Argument> matchedArguments(Step step) {
+        return shared.matchedArguments(step);
+    }
+
+    @Override
+    public String getLocation(boolean detail) {
+        return shared.getLocation(detail);
+    }
+
+    @Override
+    public Integer getParameterCount() {
+        return shared.getParameterCount();
+    }
+
+    @Override
+    public ParameterInfo getParameterType(int n, Type argumentType) {
+        return shared.getParameterType(n, argumentType);
+    }
+
+    @Override
+    public boolean isDefinedAt(StackTraceElement stackTraceElement) {
+        return shared.isDefinedAt(stackTraceElement);
+    }
+
+    @Override
+    public String getPattern() {
+        return shared.getPattern();
+    }
+
+    @Override
+    public boolean isScenarioScoped() {
+        return false;
+    }
+
+}
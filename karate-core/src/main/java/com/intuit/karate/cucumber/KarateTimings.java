@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * durations (in seconds) of features or scenarios from previous runs, so that
+ * the parallel runner can start the longest ones first (longest processing time first)
+ *
+ * @author pthomas3
+ */
+public class KarateTimings {
+
+    private static final Logger logger = LoggerFactory.getLogger(KarateTimings.class);
+
+    public static final String KARATE_TIMINGS = "karate.timings";
+    public static final String FILE_NAME = "karate-timings.properties";
+
+    private final File file;
+    private final Properties history = new Properties();
+    // only what was run this time is saved, so that removed features do not linger
+    private final Properties current = new Properties();
+
+    public KarateTimings(File file) {
+        this.file = file;
+        if (file.exists()) {
+            try (InputStream is = new FileInputStream(file)) {
+                history.load(is);
+            } catch (Exception e) {
+                logger.warn("ignoring unreadable timings file: {} - {}", file, e.getMessage());
+            }
+        }
+    }
+
+    // the location can be over-ridden so that history survives a clean build
+    public static KarateTimings forReportDir(String reportDir) {
+        String path = System.getProperty(KARATE_TIMINGS);
+        return new KarateTimings(path == null ? new File(reportDir, FILE_NAME) : new File(path));
+    }
+
+    public Double get(String key) {
+        String value = history.getProperty(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void put(String key, double seconds) {
+        // not the default locale, which may use a comma for the decimal point
+        current.setProperty(key, String.format(Locale.ROOT, "%.3f", seconds));
+    }
+
+    public void save() {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (OutputStream os = new FileOutputStream(file)) {
+            current.store(os, "karate parallel runner durations in seconds");
+        } catch (Exception e) {
+            logger.warn("failed to write timings file: {} - {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the estimated duration for each key, unknown ones get the average
+     * of the known ones, and null is returned if nothing is known
+     */
+    public List<Double> estimate(List<String> keys) {
+        double total = 0;
+        int known = 0;
+        for (String key : keys) {
+            Double time = get(key);
+            if (time != null) {
+                total += time;
+                known++;
+            }
+        }
+        if (known == 0) {
+            return null;
+        }
+        double average = total / known;
+        List<Double> estimates = new ArrayList(keys.size());
+        for (String key : keys) {
+            Double time = get(key);
+            estimates.add(time == null ? average : time);
+        }
+        return estimates;
+    }
+
+    /**
+     * @return the indexes of the estimates in longest-first order
+     */
+    public static List<Integer> longestFirst(List<Double> estimates) {
+        List<Integer> order = new ArrayList(estimates.size());
+        for (int i = 0; i < estimates.size(); i++) {
+            order.add(i);
+        }
+        Collections.sort(order, (a, b) -> Double.compare(estimates.get(b), estimates.get(a)));
+        return order;
+    }
+
+    /**
+     * @return the makespan when the durations are greedily handed out
+     * longest-first to the least loaded of the threads
+     */
+    public static double makespan(List<Double> estimates, int threadCount) {
+        PriorityQueue<Double> loads = new PriorityQueue();
+        for (int i = 0; i < threadCount; i++) {
+            loads.add(0d);
+        }
+        for (int i : longestFirst(estimates)) {
+            loads.add(loads.poll() + estimates.get(i));
+        }
+        double max = 0;
+        for (double load : loads) {
+            max = Math.max(max, load);
+        }
+        return max;
+    }
+
+}
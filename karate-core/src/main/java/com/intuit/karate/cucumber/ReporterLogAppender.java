@@ -27,55 +27,125 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import com.intuit.karate.FileUtils;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import org.slf4j.LoggerFactory;
 
 /**
+ * collects the logs of the thread it was created on, between calls to collect()
+ * 
+ * there is a single appender on the karate logger, which hands each event to
+ * the buffer bound to the logging thread, if any - so the cost of a log event
+ * does not grow with the number of threads (or reporters) in play
+ * 
+ * the buffer is capped (in bytes) and only the most recent log lines are kept,
+ * use the system property karate.log.max to change the limit
  *
  * @author pthomas3
  */
-public class ReporterLogAppender extends AppenderBase<ILoggingEvent> {
+public class ReporterLogAppender {
     
-    private final Logger logger;
-    private final PatternLayoutEncoder encoder;
-    private final String threadName;
-    private StringBuilder sb;
+    public static final String KARATE_LOG_MAX = "karate.log.max";
+    public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+    
+    private static final ThreadLocal<ReporterLogAppender> CURRENT = new ThreadLocal();
+    
+    private final int maxBytes;
+    private final ArrayDeque<byte[]> lines = new ArrayDeque();
+    private int byteCount;
+    private int droppedCount;
     
     public ReporterLogAppender() {
-        sb = new StringBuilder();
-        this.threadName = Thread.currentThread().getName();
-        this.logger = (Logger) LoggerFactory.getLogger("com.intuit.karate");
-        setName("karate-reporter");
-        LoggerContext lc = (LoggerContext) LoggerFactory.getILoggerFactory();
-        setContext(lc);        
-        encoder = new PatternLayoutEncoder();
-        encoder.setPattern("%d{HH:mm:ss.SSS} %-5level - %msg%n");
-        encoder.setContext(context);
-        encoder.start();
-        start();
-        logger.addAppender(this);     
+        this(Integer.getInteger(KARATE_LOG_MAX, DEFAULT_MAX_BYTES));
+    }
+    
+    public ReporterLogAppender(int maxBytes) {
+        this.maxBytes = maxBytes;
+        Dispatcher.ensureAttached();
+        CURRENT.set(this);
     }       
     
+    public void detach() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        clear();
+    }
+    
+    private void clear() {
+        lines.clear();
+        byteCount = 0;
+        droppedCount = 0;
+    }
+    
     public String collect() {
-        String temp = sb.toString();
-        sb = new StringBuilder();
-        return temp;
+        CURRENT.set(this); // the reporter doing the collecting owns this thread's logs from now on
+        StringBuilder sb = new StringBuilder();
+        if (droppedCount > 0) {
+            sb.append("[... ").append(droppedCount).append(" bytes of log skipped ...]\n");
+        }
+        for (byte[] line : lines) {
+            sb.append(FileUtils.toString(line));
+        }
+        clear();
+        return sb.toString();
+    }
+    
+    private void append(byte[] bytes) {
+        if (bytes.length > maxBytes) { // keep the tail of a very long line
+            droppedCount += bytes.length - maxBytes;
+            bytes = Arrays.copyOfRange(bytes, bytes.length - maxBytes, bytes.length);
+        }
+        lines.add(bytes);
+        byteCount += bytes.length;
+        while (byteCount > maxBytes) {
+            byte[] oldest = lines.poll();
+            byteCount -= oldest.length;
+            droppedCount += oldest.length;
+        }
     }
     
-    @Override
-    protected void append(ILoggingEvent event) {
-        if (!threadName.equals(event.getThreadName())) {
-            return;
+    private static class Dispatcher extends UnsynchronizedAppenderBase<ILoggingEvent> {
+        
+        private static final String NAME = "karate-reporter";
+        
+        private final PatternLayoutEncoder encoder;
+        
+        private Dispatcher(LoggerContext lc) {
+            setName(NAME);
+            setContext(lc);
+            encoder = new PatternLayoutEncoder();
+            encoder.setPattern("%d{HH:mm:ss.SSS} %-5level - %msg%n");
+            encoder.setContext(lc);
+            encoder.start();
+            start();
         }
-        try {
-            byte[] bytes = encoder.encode(event);
-            String line = FileUtils.toString(bytes);
-            sb.append(line);
-        } catch (Exception e) {
-            System.err.println("possible logback version conflict: " + e.getMessage());
-            e.printStackTrace();
+        
+        // re-checked every time, because a logback re-configuration would have removed it
+        private static synchronized void ensureAttached() {
+            Logger logger = (Logger) LoggerFactory.getLogger("com.intuit.karate");
+            if (logger.getAppender(NAME) == null) {
+                LoggerContext lc = (LoggerContext) LoggerFactory.getILoggerFactory();
+                logger.addAppender(new Dispatcher(lc));
+            }
         }
-    }    
+        
+        @Override
+        protected void append(ILoggingEvent event) {
+            ReporterLogAppender target = CURRENT.get();
+            if (target == null) {
+                return;
+            }
+            try {
+                target.append(encoder.encode(event));
+            } catch (Exception e) {
+                System.err.println("possible logback version conflict: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        
+    }
     
 }
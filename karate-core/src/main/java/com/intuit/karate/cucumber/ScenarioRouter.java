@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.ScriptBridge;
+import com.intuit.karate.ScriptContext;
+import com.intuit.karate.ScriptValue;
+import com.intuit.karate.ScriptValueMap;
+import com.intuit.karate.StringUtils;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * mock scenario expressions made up only of pathMatches(), methodIs(),
+ * typeContains() and acceptContains() joined by '&&' are indexed by path and
+ * method on start-up, so that only the remaining ones need to be evaluated as
+ * javascript - candidates are still tried in the order they appear in the
+ * feature, so the first scenario that matches wins, just like before
+ *
+ * @author pthomas3
+ */
+public class ScenarioRouter {
+
+    private static final Pattern TERM = Pattern.compile("(\\w+)\\(\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*\\)");
+    private static final String ANY_METHOD = "*";
+
+    private final List<Route> routes;
+    private final Node root = new Node();
+    private final Map<String, BitSet> pathless = new HashMap();
+    private final BitSet dynamic = new BitSet();
+
+    private static class Node {
+
+        final Map<String, Node> literals = new HashMap();
+        Node param;
+        final Map<String, BitSet> methods = new HashMap();
+
+    }
+
+    private static class Route {
+
+        final int index;
+        final ScenarioWrapper scenario;
+        final String expression;
+        String path;
+        String method;
+        final List<String> types = new ArrayList(1);
+        final List<String> accepts = new ArrayList(1);
+
+        Route(int index, ScenarioWrapper scenario, String expression) {
+            this.index = index;
+            this.scenario = scenario;
+            this.expression = expression;
+        }
+
+    }
+
+    /**
+     * @return null if the expression is not one we can index
+     */
+    private static Route parse(int index, ScenarioWrapper scenario) {
+        String expression = StringUtils.trimToNull(scenario.getNameAndDescription());
+        Route route = new Route(index, scenario, expression);
+        if (expression == null) { // catch-all
+            return route;
+        }
+        for (String term : expression.split("&&", -1)) {
+            Matcher matcher = TERM.matcher(term.trim());
+            if (!matcher.matches()) {
+                return null;
+            }
+            String arg = matcher.group(2) == null ? matcher.group(3) : matcher.group(2);
+            switch (matcher.group(1)) {
+                case "pathMatches":
+                    if (route.path != null) {
+                        return null;
+                    }
+                    route.path = arg;
+                    break;
+                case "methodIs":
+                    if (route.method != null) {
+                        return null;
+                    }
+                    route.method = arg.toUpperCase();
+                    break;
+                case "typeContains":
+                    route.types.add(arg);
+                    break;
+                case "acceptContains":
+                    route.accepts.add(arg);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return route;
+    }
+
+    private static void add(Map<String, BitSet> methods, Route route) {
+        String key = route.method == null ? ANY_METHOD : route.method;
+        methods.computeIfAbsent(key, k -> new BitSet()).set(route.index);
+    }
+
+    private static void collect(Map<String, BitSet> methods, String method, BitSet candidates) {
+        BitSet any = methods.get(ANY_METHOD);
+        if (any != null) {
+            candidates.or(any);
+        }
+        BitSet exact = method == null ? null : methods.get(method);
+        if (exact != null) {
+            candidates.or(exact);
+        }
+    }
+
+    private static void collect(Node node, List<String> segments, int depth, String method, BitSet candidates) {
+        if (depth == segments.size()) {
+            collect(node.methods, method, candidates);
+            return;
+        }
+        Node literal = node.literals.get(segments.get(depth));
+        if (literal != null) {
+            collect(literal, segments, depth + 1, method, candidates);
+        }
+        if (node.param != null) {
+            collect(node.param, segments, depth + 1, method, candidates);
+        }
+    }
+
+    private static boolean isParam(String segment) {
+        return segment.startsWith("{") && segment.endsWith("}");
+    }
+
+    /**
+     * @return null if the feature has a scenario outline, which this does not support
+     */
+    public static ScenarioRouter build(FeatureWrapper feature) {
+        List<ScenarioWrapper> scenarios = new ArrayList();
+        for (FeatureSection section : feature.getSections()) {
+            if (section.isOutline()) {
+                return null;
+            }
+            scenarios.add(section.getScenario());
+        }
+        return new ScenarioRouter(scenarios);
+    }
+
+    private ScenarioRouter(List<ScenarioWrapper> scenarios) {
+        routes = new ArrayList(scenarios.size());
+        for (int i = 0; i < scenarios.size(); i++) {
+            ScenarioWrapper scenario = scenarios.get(i);
+            Route route = parse(i, scenario);
+            if (route == null) {
+                route = new Route(i, scenario, null);
+                dynamic.set(i);
+            } else if (route.path == null) {
+                add(pathless, route);
+            } else {
+                Node node = root;
+                for (String segment : StringUtils.split(route.path, '/')) {
+                    if (isParam(segment)) {
+                        if (node.param == null) {
+                            node.param = new Node();
+                        }
+                        node = node.param;
+                    } else {
+                        node = node.literals.computeIfAbsent(segment, k -> new Node());
+                    }
+                }
+                add(node.methods, route);
+            }
+            routes.add(route);
+        }
+    }
+
+    public ScenarioWrapper route(KarateBackend backend) {
+        ScriptContext context = backend.getStepDefs().getContext();
+        ScriptValueMap vars = context.getVars();
+        String uri = getAsString(vars, ScriptValueMap.VAR_REQUEST_URI);
+        String method = getAsString(vars, ScriptValueMap.VAR_REQUEST_METHOD);
+        if (method != null) {
+            method = method.toUpperCase();
+        }
+        BitSet candidates = (BitSet) dynamic.clone();
+        collect(pathless, method, candidates);
+        if (uri != null) {
+            int pos = uri.indexOf('?');
+            String path = pos == -1 ? uri : uri.substring(0, pos);
+            collect(root, StringUtils.split(path, '/'), 0, method, candidates);
+        }
+        ScriptBridge bridge = null;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            Route route = routes.get(i);
+            if (dynamic.get(i)) {
+                if (CucumberUtils.isMatchingScenario(route.scenario, backend)) {
+                    return route.scenario;
+                }
+                continue;
+            }
+            if (bridge == null) {
+                bridge = new ScriptBridge(context);
+            }
+            if (isMatching(route, bridge)) {
+                context.logger.debug("scenario matched: {}", route.expression == null ? "(empty)" : route.expression);
+                return route.scenario;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMatching(Route route, ScriptBridge bridge) {
+        for (String type : route.types) {
+            if (!bridge.typeContains(type)) {
+                return false;
+            }
+        }
+        for (String accept : route.accepts) {
+            if (!bridge.acceptContains(accept)) {
+                return false;
+            }
+        }
+        if (route.path != null) { // the path and method already match, but this sets 'pathParams'
+            bridge.pathMatches(route.path);
+        }
+        return true;
+    }
+
+    private static String getAsString(ScriptValueMap vars, String name) {
+        ScriptValue sv = vars.get(name);
+        return sv == null ? null : sv.getAsString();
+    }
+
+}
@@ -23,15 +23,24 @@
  */
 package com.intuit.karate.http;
 
+import com.intuit.karate.FileUtils;
 import com.intuit.karate.exception.KarateException;
 import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptValue;
 import com.intuit.karate.XmlUtils;
 import com.jayway.jsonpath.DocumentContext;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import org.w3c.dom.Node;
 
@@ -52,6 +61,19 @@ public abstract class HttpClient<T> {
     private static final String KARATE_HTTP_PROPERTIES = "karate-http.properties";
 
     protected HttpRequestBuilder request;
+    private int streamResponseThreshold = -1;
+    private HttpResponse spooledResponse;
+    
+    // temp files of responses not yet cleaned up by the next call, at most one per client
+    private static final Set<File> SPOOLED_FILES = Collections.synchronizedSet(new HashSet());
+    
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (SPOOLED_FILES) {
+                SPOOLED_FILES.forEach(File::delete);
+            }
+        }));
+    }
 
     /**
      * guaranteed to be called once if empty constructor was used
@@ -210,7 +232,76 @@ public abstract class HttpClient<T> {
         return responseTime;
     }
 
+    /**
+     * for client implementations, reads the body and returns a response with
+     * the response time set, the body is read fully into memory unless
+     * streamResponse has been configured, in which case a sha-256 digest is
+     * computed on the way and a body bigger than the threshold is spooled to
+     * a temp file instead
+     */
+    protected HttpResponse readResponse(InputStream is, long startTime) {
+        if (is == null || streamResponseThreshold < 0) {
+            byte[] bytes = is == null ? new byte[0] : FileUtils.toBytes(is);
+            HttpResponse response = new HttpResponse(getResponseTime(startTime));
+            response.setBody(bytes);
+            return response;
+        }
+        if (spooledResponse != null) { // from the previous call, no longer needed
+            SPOOLED_FILES.remove(spooledResponse.getBodyFile());
+            spooledResponse.deleteBodyFile();
+            spooledResponse = null;
+        }
+        File spooledFile = null;
+        OutputStream out = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            out = baos;
+            byte[] buffer = new byte[65536];
+            long length = 0;
+            int count;
+            while ((count = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                length += count;
+                if (spooledFile == null && length > streamResponseThreshold) {
+                    spooledFile = File.createTempFile("karate-response-", ".tmp");
+                    SPOOLED_FILES.add(spooledFile);
+                    out = new FileOutputStream(spooledFile);
+                    baos.writeTo(out);
+                }
+                out.write(buffer, 0, count);
+            }
+            out.close();
+            HttpResponse response = new HttpResponse(getResponseTime(startTime));
+            if (spooledFile == null) {
+                response.setBody(baos.toByteArray());
+            } else {
+                response.setBodyFile(spooledFile);
+                response.setBodyLength(length);
+                spooledResponse = response;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            response.setBodyDigest(sb.toString());
+            return response;
+        } catch (Exception e) {
+            if (spooledFile != null) {
+                try {
+                    out.close();
+                } catch (Exception ignore) {
+                    // failing anyway
+                }
+                SPOOLED_FILES.remove(spooledFile);
+                spooledFile.delete();
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
     public HttpResponse invoke(HttpRequestBuilder request, ScriptContext context) {
+        streamResponseThreshold = context.getConfig().getStreamResponseThreshold();
         T body = buildRequestInternal(request, context);
         long startTime = System.currentTimeMillis();
         try {
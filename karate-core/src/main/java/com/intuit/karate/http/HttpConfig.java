@@ -34,6 +34,9 @@ import java.util.Map;
  */
 public class HttpConfig {
 
+    public static final int DEFAULT_STREAM_RESPONSE_THRESHOLD = 1024 * 1024;
+    public static final int DEFAULT_MATCH_EACH_PARALLEL_THRESHOLD = 10000;
+
     private boolean sslEnabled = false;
     private String sslAlgorithm = "TLS";
     private String sslKeyStore;
@@ -46,6 +49,8 @@ public class HttpConfig {
     private boolean followRedirects = true;
     private int readTimeout = 30000;
     private int connectTimeout = 30000;
+    private int maxConnectionsPerRoute = 20;
+    private int maxConnectionsTotal = 200;
     private Charset charset = FileUtils.UTF8;
     private String proxyUri;
     private String proxyUsername;
@@ -54,8 +59,11 @@ public class HttpConfig {
     private ScriptValue cookies = ScriptValue.NULL;
     private ScriptValue responseHeaders = ScriptValue.NULL;
     private boolean corsEnabled = false;
+    private boolean concurrentEnabled = false;
     private boolean logPrettyRequest;
     private boolean logPrettyResponse;
+    private int streamResponseThreshold = -1;
+    private int matchEachParallelThreshold = -1;
     private boolean printEnabled = true;
     private String clientClass;
     private HttpClient clientInstance;
@@ -80,6 +88,8 @@ public class HttpConfig {
         followRedirects = parent.followRedirects;
         readTimeout = parent.readTimeout;
         connectTimeout = parent.connectTimeout;
+        maxConnectionsPerRoute = parent.maxConnectionsPerRoute;
+        maxConnectionsTotal = parent.maxConnectionsTotal;
         charset = parent.charset;
         proxyUri = parent.proxyUri;
         proxyUsername = parent.proxyUsername;
@@ -88,8 +98,11 @@ public class HttpConfig {
         cookies = parent.cookies;
         responseHeaders = parent.responseHeaders;
         corsEnabled = parent.corsEnabled;
+        concurrentEnabled = parent.concurrentEnabled;
         logPrettyRequest = parent.logPrettyRequest;
         logPrettyResponse = parent.logPrettyResponse;
+        streamResponseThreshold = parent.streamResponseThreshold;
+        matchEachParallelThreshold = parent.matchEachParallelThreshold;
         printEnabled = parent.printEnabled;
         clientClass = parent.clientClass;
         clientInstance = parent.clientInstance;
@@ -194,6 +207,22 @@ public class HttpConfig {
         this.connectTimeout = connectTimeout;
     }
 
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
     public Charset getCharset() {
         return charset;
     }
@@ -258,6 +287,14 @@ public class HttpConfig {
         this.corsEnabled = corsEnabled;
     }
 
+    public boolean isConcurrentEnabled() {
+        return concurrentEnabled;
+    }
+
+    public void setConcurrentEnabled(boolean concurrentEnabled) {
+        this.concurrentEnabled = concurrentEnabled;
+    }
+
     public boolean isLogPrettyRequest() {
         return logPrettyRequest;
     }
@@ -274,6 +311,22 @@ public class HttpConfig {
         this.logPrettyResponse = logPrettyResponse;
     }
 
+    public int getStreamResponseThreshold() {
+        return streamResponseThreshold;
+    }
+
+    public void setStreamResponseThreshold(int streamResponseThreshold) {
+        this.streamResponseThreshold = streamResponseThreshold;
+    }
+
+    public int getMatchEachParallelThreshold() {
+        return matchEachParallelThreshold;
+    }
+
+    public void setMatchEachParallelThreshold(int matchEachParallelThreshold) {
+        this.matchEachParallelThreshold = matchEachParallelThreshold;
+    }
+
     public boolean isPrintEnabled() {
         return printEnabled;
     }
@@ -23,6 +23,12 @@
  */
 package com.intuit.karate.http;
 
+import com.intuit.karate.FileUtils;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +43,10 @@ public class HttpResponse {
     private Map<String, Cookie> cookies;
     private MultiValuedMap headers;
     private byte[] body;
+    private File bodyFile;
+    private List<InputStream> bodyStreams;
+    private long bodyLength = -1;
+    private String bodyDigest;
     private int status;
     private final long time;
     
@@ -62,8 +72,82 @@ public class HttpResponse {
     }
 
     public byte[] getBody() {
+        if (body == null && bodyFile != null) { // only read into memory if really needed
+            try (InputStream is = new FileInputStream(bodyFile)) {
+                body = FileUtils.toBytes(is);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
         return body;
     }
+    
+    public InputStream getBodyAsStream() {
+        if (bodyFile != null) {
+            try {
+                InputStream is = new FileInputStream(bodyFile);
+                if (bodyStreams == null) {
+                    bodyStreams = new ArrayList(1);
+                }
+                bodyStreams.add(is);
+                return is;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return body == null ? null : new ByteArrayInputStream(body);
+    }
+    
+    /**
+     * closes any streams opened on the temp file the body was spooled to and
+     * deletes it, after which the body is no longer available
+     */
+    public void deleteBodyFile() {
+        if (bodyStreams != null) {
+            for (InputStream is : bodyStreams) {
+                try {
+                    is.close();
+                } catch (Exception e) {
+                    // nothing we can do
+                }
+            }
+            bodyStreams = null;
+        }
+        if (bodyFile != null) {
+            bodyFile.delete();
+            bodyFile = null;
+        }
+    }
+
+    /**
+     * @return the temp file the body was spooled to, null if the body is in memory
+     */
+    public File getBodyFile() {
+        return bodyFile;
+    }
+
+    public void setBodyFile(File bodyFile) {
+        this.bodyFile = bodyFile;
+    }
+
+    public long getBodyLength() {
+        return bodyLength;
+    }
+
+    public void setBodyLength(long bodyLength) {
+        this.bodyLength = bodyLength;
+    }
+
+    /**
+     * @return the hex sha-256 of the body, only computed when streamResponse is configured
+     */
+    public String getBodyDigest() {
+        return bodyDigest;
+    }
+
+    public void setBodyDigest(String bodyDigest) {
+        this.bodyDigest = bodyDigest;
+    }
 
     public int getStatus() {
         return status;
@@ -75,6 +159,7 @@ public class HttpResponse {
 
     public void setBody(byte[] body) {
         this.body = body;
+        this.bodyLength = body == null ? -1 : body.length;
     }
 
     public Map<String, Cookie> getCookies() {
@@ -66,7 +66,27 @@ public class HttpUtils {
         vars.put(ScriptValueMap.VAR_RESPONSE_TIME, response.getTime());
         vars.put(ScriptValueMap.VAR_RESPONSE_COOKIES, response.getCookies());
         vars.put(ScriptValueMap.VAR_RESPONSE_HEADERS, response.getHeaders());
-        Object responseBody = convertResponseBody(response.getBody(), context);
+        if (response.getBodyDigest() == null) {
+            vars.remove(ScriptValueMap.VAR_RESPONSE_LENGTH);
+            vars.remove(ScriptValueMap.VAR_RESPONSE_DIGEST);
+        } else {
+            vars.put(ScriptValueMap.VAR_RESPONSE_LENGTH, response.getBodyLength());
+            vars.put(ScriptValueMap.VAR_RESPONSE_DIGEST, response.getBodyDigest());
+        }
+        if (response.getBodyFile() != null) { // too big to parse, read lazily
+            vars.put(ScriptValueMap.VAR_RESPONSE, response.getBodyAsStream());
+            return;
+        }
+        byte[] bytes = response.getBody();
+        if (context.isLogPrettyResponse()) { // has to be parsed right away anyway
+            vars.put(ScriptValueMap.VAR_RESPONSE, parseResponseBody(bytes, context));
+        } else { // many tests never look at the response body, so parse only when needed
+            vars.putLazy(ScriptValueMap.VAR_RESPONSE, () -> parseResponseBody(bytes, context));
+        }
+    }
+
+    private static Object parseResponseBody(byte[] bytes, ScriptContext context) {
+        Object responseBody = convertResponseBody(bytes, context);
         if (responseBody instanceof String) {
             String responseString = StringUtils.trimToEmpty((String) responseBody);
             if (Script.isJson(responseString)) {
@@ -91,7 +111,7 @@ public class HttpUtils {
                 }
             }
         }
-        vars.put(ScriptValueMap.VAR_RESPONSE, responseBody);
+        return responseBody;
     }
 
     public static void updateRequestVars(HttpRequestBuilder request, ScriptValueMap vars, ScriptContext context) {
@@ -155,6 +175,12 @@ public class HttpUtils {
         }
     }
 
+    // when streaming, a body that may be bigger than the threshold is not buffered just for logging
+    public static boolean isStreamedBody(long contentLength, HttpConfig config) {
+        int threshold = config.getStreamResponseThreshold();
+        return threshold >= 0 && (contentLength < 0 || contentLength > threshold);
+    }
+
     public static boolean isPrintable(String mediaType) {
         if (mediaType == null) {
             return false;
@@ -121,6 +121,7 @@ public class App extends Application {
     
     @Override
     public void start(Stage stage) throws Exception {        
+        FileUtils.setFeatureCacheEnabled(false);
         List<String> params = getParameters().getUnnamed();
         String envString = System.getProperty(ScriptBindings.KARATE_ENV);
         if (!params.isEmpty()) {
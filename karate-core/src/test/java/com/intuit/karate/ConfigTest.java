@@ -1,6 +1,8 @@
 package com.intuit.karate;
 
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -10,6 +12,8 @@ import static org.junit.Assert.*;
  */
 public class ConfigTest {
     
+    public static final AtomicInteger COUNTER = new AtomicInteger();
+    
     @Test
     public void testSettingVariableViaKarateConfig() {
         String featureDir = FileUtils.getDirContaining(getClass()).getPath();
@@ -20,4 +24,70 @@ public class ConfigTest {
         assertEquals("someValue", value.getValue());
     }
     
+    @Test
+    public void testKarateConfigCachedAndForkedPerScenario() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        System.setProperty(ScriptBindings.KARATE_CONFIG, new File(featureDir, "config-cache.js").getPath());
+        System.setProperty(ScriptBindings.KARATE_CONFIG_CACHE, "true");
+        try {
+            ConfigCache.clear();
+            COUNTER.set(0);
+            ScriptEnv env = new ScriptEnv("dev", new File(featureDir), null, getClass().getClassLoader(), null);
+            CallContext callContext = new CallContext(null, 0, null, -1, false, true, null);
+            ScriptContext first = new ScriptContext(env, callContext);
+            Script.assign("token", "'one'", first);
+            Script.setValueByPath("data", "$.foo", "'changed'", first);
+            ScriptContext second = new ScriptContext(env, callContext);
+            assertEquals(1, COUNTER.get());
+            Script.assign("token", "'two'", second);
+            assertEquals("bar", Script.evalJsExpression("data.foo", second).getValue());
+            assertEquals("two", Script.evalJsExpression("getToken()", second).getValue());
+            assertEquals("one", Script.evalJsExpression("getToken()", first).getValue());
+            Map<String, Object> headers = second.getConfig().getHeaders().invokeFunction(second).getAsMap();
+            assertEquals("two", headers.get("token"));
+            // a different env is evaluated afresh
+            env = new ScriptEnv("qa", new File(featureDir), null, getClass().getClassLoader(), null);
+            new ScriptContext(env, callContext);
+            assertEquals(2, COUNTER.get());
+        } finally {
+            System.clearProperty(ScriptBindings.KARATE_CONFIG);
+            System.clearProperty(ScriptBindings.KARATE_CONFIG_CACHE);
+            ConfigCache.clear();
+        }
+    }
+
+    @Test
+    public void testKarateConfigWithClosureIsNotCached() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        System.setProperty(ScriptBindings.KARATE_CONFIG, new File(featureDir, "config-cache-closure.js").getPath());
+        System.setProperty(ScriptBindings.KARATE_CONFIG_CACHE, "true");
+        try {
+            ConfigCache.clear();
+            COUNTER.set(0);
+            ScriptEnv env = new ScriptEnv("dev", new File(featureDir), null, getClass().getClassLoader(), null);
+            CallContext callContext = new CallContext(null, 0, null, -1, false, true, null);
+            ScriptContext first = new ScriptContext(env, callContext);
+            ScriptContext second = new ScriptContext(env, callContext);
+            assertEquals(2, COUNTER.get());
+            assertEquals("http://localhost/foo", Script.evalJsExpression("helper('foo')", first).getValue());
+            assertEquals("http://localhost/bar", Script.evalJsExpression("helper('bar')", second).getValue());
+        } finally {
+            System.clearProperty(ScriptBindings.KARATE_CONFIG);
+            System.clearProperty(ScriptBindings.KARATE_CONFIG_CACHE);
+            ConfigCache.clear();
+        }
+    }
+
+    @Test
+    public void testFunctionsThatReferToOuterVariablesAreNotSelfContained() {
+        String featureDir = FileUtils.getDirContaining(getClass()).getPath();
+        ScriptEnv env = new ScriptEnv("dev", new File(featureDir), null, getClass().getClassLoader(), null);
+        ScriptContext ctx = new ScriptContext(env, new CallContext(null, 0, null, -1, false, false, null));
+        JsEngine js = ScriptBindings.getJsEngine();
+        assertTrue(js.isSelfContained(Script.evalJsExpression("function(a){ var b = a.x; function c(d){ return d + b } try { return c(1) } catch (e) { return e } }", ctx).getValue()));
+        assertTrue(js.isSelfContained(Script.evalJsExpression("function(){ return { token: karate.get('token'), now: JSON.stringify(Math.max(1, 2)) } }", ctx).getValue()));
+        assertFalse(js.isSelfContained(Script.evalJsExpression("(function(){ var base = 'x'; return function(p){ return base + p } })()", ctx).getValue()));
+        assertFalse(js.isSelfContained(Script.evalJsExpression("function(p){ var f = function(){ var base = 1; }; return base + p }", ctx).getValue()));
+    }
+
 }
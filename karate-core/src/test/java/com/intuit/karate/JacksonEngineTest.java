@@ -0,0 +1,104 @@
+package com.intuit.karate;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.JsonPath;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class JacksonEngineTest {
+
+    private final JsonEngine jackson = new JacksonEngine();
+    private final JsonEngine smart = new JsonSmartEngine();
+
+    private DocumentContext parse(String raw) {
+        Configuration conf = Configuration.builder()
+                .jsonProvider(jackson.jsonProvider())
+                .mappingProvider(jackson.mappingProvider()).build();
+        return JsonPath.using(conf).parse(raw);
+    }
+
+    @Test
+    public void testParseIsLenientAndOrdered() {
+        String raw = "{ foo: 'bar', 'spa cey': [1, 2.5, 10000000000], nest: { b: true, a: null } }";
+        Map map = (Map) jackson.parse(raw);
+        assertEquals(Arrays.asList("foo", "spa cey", "nest"), new ArrayList(map.keySet()));
+        assertEquals(Arrays.asList(1, 2.5, 10000000000L), map.get("spa cey"));
+        assertEquals(smart.parse(raw), map);
+        assertEquals(map, jackson.parse(raw.replace("nest:", "/* comment */ nest:")));
+        assertEquals("{\"foo\":\"bar\",\"spa cey\":[1,2.5,10000000000],\"nest\":{\"b\":true,\"a\":null}}", jackson.toJson(map));
+    }
+
+    @Test
+    public void testPrettyPrintSameAsJsonSmart() {
+        String raw = "{ foo: 'bar', baz: null, 'spa cey': [1, 2, 3], bool: true, empty: [], nest: { a: 'b', 'hy-phen': 'blah' } }";
+        Object o = smart.parse(raw);
+        assertEquals(smart.toPrettyJson(o), jackson.toPrettyJson(o));
+    }
+
+    @Test
+    public void testBackReferences() {
+        Map map = new LinkedHashMap();
+        List list = new ArrayList();
+        list.add(1);
+        map.put("a", list);
+        map.put("b", list);
+        // shared values are fine, only cycles are cut when not pretty printing
+        assertEquals("{\"a\":[1],\"b\":[1]}", jackson.toJson(map));
+        map.put("self", map);
+        assertEquals("{\"a\":[1],\"b\":[1],\"self\":\"#ref:java.util.LinkedHashMap\"}", jackson.toJson(map));
+        assertEquals(smart.toPrettyJson(map), jackson.toPrettyJson(map));
+    }
+
+    @Test
+    public void testJsonPathAndPojoMapping() {
+        DocumentContext doc = parse("{ foo: { bar: 'baz' }, list: [{ a: 1 }, { a: 2 }] }");
+        assertEquals("baz", doc.read("$.foo.bar"));
+        assertEquals(Arrays.asList(1, 2), doc.read("$.list[*].a"));
+        doc.put("$.foo", "new", 5);
+        assertEquals("{\"foo\":{\"bar\":\"baz\",\"new\":5},\"list\":[{\"a\":1},{\"a\":2}]}", doc.jsonString());
+        ComplexPojo pojo = jackson.fromJson("{ foo: 'hello', bar: 1, ban: [{ foo: 'child' }], unknown: true }", ComplexPojo.class);
+        assertEquals("hello", pojo.getFoo());
+        assertEquals("child", pojo.getBan().get(0).getFoo());
+        Map map = (Map) jackson.parse(jackson.toJson(pojo));
+        assertEquals("hello", map.get("foo"));
+    }
+
+    private static InputStream stream(String raw) {
+        return new ByteArrayInputStream(raw.getBytes());
+    }
+
+    @Test
+    public void testForEachArrayItem() {
+        String raw = " [{ a: 'x,]}' }, [1, [2]], \"q\\\"uote\", null, 3.5, { b: { c: [] } }]";
+        List expected = (List) smart.parse(raw);
+        for (JsonEngine engine : Arrays.asList(smart, jackson)) {
+            List items = new ArrayList();
+            assertTrue(engine.forEachArrayItem(stream(raw), items::add));
+            assertEquals(expected, items);
+            items.clear();
+            assertTrue(engine.forEachArrayItem(stream(raw), item -> items.add(item) && items.size() < 2));
+            assertEquals(expected.subList(0, 2), items);
+            assertFalse(engine.forEachArrayItem(stream("{ a: 1 }"), items::add));
+            try {
+                engine.forEachArrayItem(stream("[1, 2"), item -> true);
+                fail("truncated array should fail");
+            } catch (InvalidJsonException e) {
+                // expected, the same from either engine
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.intuit.karate;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class MatchMacroTest {
+
+    @Test
+    public void testParsedOnceAndShared() {
+        MatchMacro macro = MatchMacro.get("##regex [a-z]+");
+        assertSame(macro, MatchMacro.get("##regex [a-z]+"));
+        assertTrue(macro.isOptional());
+        assertEquals(MatchMacro.Type.REGEX, macro.getType());
+        assertTrue(macro.regexValidator.validate(new ScriptValue("abc")).isPass());
+        assertFalse(macro.regexValidator.validate(new ScriptValue("ABC")).isPass());
+    }
+
+    @Test
+    public void testEmbedded() {
+        MatchMacro macro = MatchMacro.get("#(^^foo)");
+        assertEquals(MatchMacro.Type.EMBEDDED, macro.getType());
+        assertEquals(MatchType.CONTAINS_ONLY, macro.embeddedMatchType);
+        assertEquals("foo", macro.embeddedExpression);
+        macro = MatchMacro.get("#(foo)");
+        assertNull(macro.embeddedMatchType);
+    }
+
+    @Test
+    public void testArray() {
+        MatchMacro macro = MatchMacro.get("#[5] #string");
+        assertEquals(MatchMacro.Type.ARRAY, macro.getType());
+        assertEquals(5, (int) macro.arrayLength);
+        assertNull(macro.arrayLengthExpression);
+        assertEquals("'#string'", macro.arrayEachExpression);
+        assertNull(macro.arrayEachMatchType);
+        macro = MatchMacro.get("#[_ > 1] ^foo");
+        assertNull(macro.arrayLength);
+        assertEquals("_ > 1", macro.arrayLengthExpression);
+        assertEquals("foo", macro.arrayEachExpression);
+        assertEquals(MatchType.EACH_CONTAINS, macro.arrayEachMatchType);
+        macro = MatchMacro.get("#[]");
+        assertNull(macro.arrayLength);
+        assertNull(macro.arrayLengthExpression);
+        assertNull(macro.arrayEachExpression);
+    }
+
+    @Test
+    public void testValidatorAndPredicate() {
+        MatchMacro macro = MatchMacro.get("#number? _ > 0");
+        assertEquals(MatchMacro.Type.VALIDATOR, macro.getType());
+        assertEquals("number", macro.validatorName);
+        assertEquals(" _ > 0", macro.predicate);
+        macro = MatchMacro.get("#? _ > 0");
+        assertNull(macro.validatorName);
+        assertEquals("##null", MatchMacro.get("##null").toString());
+        assertEquals("null", MatchMacro.get("##null").body);
+    }
+
+}
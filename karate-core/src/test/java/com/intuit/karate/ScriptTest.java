@@ -1,13 +1,16 @@
 package com.intuit.karate;
 
+import com.intuit.karate.cucumber.FeatureWrapper;
 import com.intuit.karate.http.DummyHttpClient;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.JsonPath;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.junit.Test;
@@ -1084,6 +1087,114 @@ public class ScriptTest {
         assertTrue(Script.matchNamed(MatchType.CONTAINS_ONLY, "json", null, "{ foo: 1 }", ctx).pass);
     }
     
+    @Test
+    public void testMatchContainsOnLargeArrays() {
+        ScriptContext ctx = getContext();
+        List<Map> list = new ArrayList();
+        for (int i = 0; i < 5000; i++) {
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("id", i);
+            map.put("name", "name" + i);
+            map.put("tags", Arrays.asList("a", i % 2 == 0 ? "even" : "odd"));
+            list.add(map);
+        }
+        ctx.vars.put("actual", list);
+        // key order and number types do not matter
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "actual", null, "[{ tags: ['a', 'odd'], name: 'name4999', id: 4999.0 }, { id: 0, name: 'name0', tags: ['a', 'even'] }]", ctx).pass);
+        // mix of exact and fuzzy
+        assertTrue(Script.matchNamed(MatchType.CONTAINS, "actual", null, "[{ id: 10, name: 'name10', tags: ['a', 'even'] }, { id: 11, name: '#string', tags: '#[2]' }]", ctx).pass);
+        AssertionResult ar = Script.matchNamed(MatchType.CONTAINS, "actual", null, "[{ id: 10, name: 'name10', tags: ['a', 'even'] }, { id: 10, name: 'name10', tags: ['a', 'odd'] }]", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("actual value does not contain expected"));
+        assertTrue(Script.matchNamed(MatchType.NOT_CONTAINS, "actual", null, "[{ id: 10, name: 'name11', tags: ['a', 'even'] }, { id: -1 }]", ctx).pass);
+        assertFalse(Script.matchNamed(MatchType.NOT_CONTAINS, "actual", null, "[{ id: -1 }, { id: 10, name: 'name10', tags: ['a', 'even'] }]", ctx).pass);
+        assertTrue(Script.matchNamed(MatchType.CONTAINS_ANY, "actual", null, "[{ id: -1 }, { id: 10, name: 'name10', tags: ['a', 'even'] }]", ctx).pass);
+        Script.assign("numbers", "[1, 2.5, -0.0, null, 'x']", ctx);
+        assertTrue(Script.matchNamed(MatchType.CONTAINS_ONLY, "numbers", null, "['x', null, 0, 2.50, 1.0]", ctx).pass);
+    }
+
+    @Test
+    public void testMatchEqualsOnLargeDocuments() {
+        ScriptContext ctx = getContext();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{ id: ").append(i).append(", name: 'name").append(i).append("', tags: ['a', 'b'] }");
+        }
+        String json = sb.append(']').toString();
+        Script.assign("actual", json, ctx);
+        Script.assign("expected", json, ctx);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "actual", null, "expected", ctx).pass);
+        assertFalse(Script.matchNamed(MatchType.NOT_EQUALS, "actual", null, "expected", ctx).pass);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "actual", null, "actual", ctx).pass);
+        // a cached fingerprint must not hide a change made in place
+        Script.setValueByPath("expected", "$[1500].tags[1]", "'c'", ctx);
+        AssertionResult ar = Script.matchNamed(MatchType.EQUALS, "actual", null, "expected", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("$[1500].tags[1]"));
+        assertTrue(Script.matchNamed(MatchType.NOT_EQUALS, "actual", null, "expected", ctx).pass);
+        Script.evalJsExpression("expected[1500].tags[1] = 'b'", ctx);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "actual", null, "expected", ctx).pass);
+        // numbers of different types and macros still go through the full match
+        Script.setValueByPath("expected", "$[10].id", "10.0", ctx);
+        Script.setValueByPath("expected", "$[20].name", "'#string'", ctx);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "actual", null, "expected", ctx).pass);
+    }
+
+    @Test
+    public void testMatchEachInParallel() {
+        ScriptContext ctx = getContext();
+        ctx.configure("matchEachParallel", new ScriptValue(100));
+        List<Map> list = new ArrayList();
+        for (int i = 0; i < 5000; i++) {
+            Map<String, Object> map = new LinkedHashMap();
+            map.put("id", i);
+            map.put("name", "name" + i);
+            list.add(map);
+        }
+        ctx.vars.put("actual", list);
+        Script.assign("min", "0", ctx);
+        assertTrue(Script.matchNamed(MatchType.EACH_EQUALS, "actual", null, "{ id: '#? _ >= min', name: '#string' }", ctx).pass);
+        assertTrue(Script.matchNamed(MatchType.EACH_CONTAINS, "actual", null, "{ name: '#? _.startsWith(\"name\")' }", ctx).pass);
+        list.get(4000).put("id", "x");
+        list.get(1234).put("id", -1);
+        list.get(4999).put("id", -1);
+        AssertionResult ar = Script.matchNamed(MatchType.EACH_EQUALS, "actual", null, "{ id: '#? _ >= min', name: '#string' }", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("$[1234].id"));
+        assertTrue(Script.matchNamed(MatchType.EACH_NOT_EQUALS, "actual", null, "{ id: '#number', name: '#string' }", ctx).pass);
+        ctx.configure("matchEachParallel", new ScriptValue(false));
+        ar = Script.matchNamed(MatchType.EACH_EQUALS, "actual", null, "{ id: '#? _ >= min', name: '#string' }", ctx);
+        assertTrue(ar.message.contains("$[1234].id"));
+    }
+
+    @Test
+    public void testMatchEachOnStream() {
+        ScriptContext ctx = getContext();
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i).append(",\"tags\":[\"a\",\"b\"]}");
+        }
+        String json = sb.append(']').toString();
+        ctx.vars.put("actual", new ByteArrayInputStream(json.getBytes()));
+        assertTrue(Script.matchNamed(MatchType.EACH_EQUALS, "actual", null, "{ id: '#number', tags: '#[2] #string' }", ctx).pass);
+        ctx.vars.put("actual", new ByteArrayInputStream(json.replace("\"id\":567", "\"id\":-1").getBytes()));
+        AssertionResult ar = Script.matchNamed(MatchType.EACH_CONTAINS, "actual", null, "{ id: '#? _ >= 0' }", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.startsWith("path: $[567].id,"));
+        ctx.vars.put("actual", new ByteArrayInputStream(json.getBytes()));
+        ar = Script.matchNamed(MatchType.EACH_NOT_EQUALS, "actual", null, "{ id: '#number', tags: '#array' }", ctx);
+        assertFalse(ar.pass);
+        assertTrue(ar.message.contains("all list items matched"));
+        ctx.vars.put("actual", new ByteArrayInputStream("{ id: 1 }".getBytes()));
+        assertFalse(Script.matchNamed(MatchType.EACH_EQUALS, "actual", null, "{ id: '#number' }", ctx).pass);
+    }
+
     @Test
     public void testMatchJsonObjectErrorReporting() {   
         ScriptContext ctx = getContext();
@@ -1156,6 +1267,59 @@ public class ScriptTest {
         assertEquals(2, b.getValue());
     }
 
+    @Test
+    public void testCompiledScriptsAreCachedAcrossContexts() {
+        LruCache cache = NashornEngine.getScriptCache();
+        String exp = "a + 'compiled'";
+        ScriptContext first = getContext();
+        Script.assign("a", "'first'", first);
+        long hits = cache.getHitCount();
+        assertEquals("firstcompiled", Script.evalJsExpression(exp, first).getValue());
+        ScriptContext second = getContext();
+        Script.assign("a", "'second'", second);
+        assertEquals("secondcompiled", Script.evalJsExpression(exp, second).getValue());
+        assertTrue(cache.getHitCount() > hits);
+    }
+
+    @Test
+    public void testJsonPathsAreCompiledOnceAndShared() {
+        LruCache cache = JsonUtils.getPathCache();
+        ScriptContext ctx = getContext();
+        Script.assign("foo", "{ a: { b: 1 } }", ctx);
+        Script.setValueByPath("foo", "$.a.cached", "2", ctx);
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        for (int i = 0; i < 3; i++) {
+            Script.setValueByPath("foo", "$.a.cached", "2", ctx);
+            assertEquals(2, Script.evalJsonPathOnVarByName("foo", "$.a.cached", ctx).getValue());
+        }
+        assertEquals(misses + 1, cache.getMissCount()); // only the first read, the set was compiled before
+        assertTrue(cache.getHitCount() >= hits + 5);
+        assertTrue(Script.matchNamed(MatchType.EQUALS, "foo", "$.a", "{ b: 1, cached: 2 }", ctx).pass);
+    }
+
+    @Test
+    public void testReadingFeatureParsesOnceAndShares() {
+        ScriptContext ctx = getContext();
+        Script.assign("a", "read('test-called.feature')", ctx);
+        Script.assign("b", "read('test-called.feature')", ctx);
+        FeatureWrapper a = ctx.vars.get("a", FeatureWrapper.class);
+        FeatureWrapper b = ctx.vars.get("b", FeatureWrapper.class);
+        assertNotSame(a, b);
+        assertSame(a.getFeature(), b.getFeature());
+        assertSame(ctx.env, b.getEnv());
+        // the shared sections do not hold on to any env
+        assertNull(b.getSections().get(0).getFeature().getEnv());
+        FileUtils.setFeatureCacheEnabled(false);
+        try {
+            Script.assign("c", "read('test-called.feature')", ctx);
+            FeatureWrapper c = ctx.vars.get("c", FeatureWrapper.class);
+            assertNotSame(a.getFeature(), c.getFeature());
+        } finally {
+            FileUtils.setFeatureCacheEnabled(true);
+        }
+    }
+
     @Test
     public void testCallingFeatureWithVarOverrides() {
         ScriptContext ctx = getContext();
@@ -23,14 +23,21 @@
  */
 package com.intuit.karate;
 
+import com.intuit.karate.http.DummyHttpClient;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import static com.intuit.karate.ScriptValue.Type.*;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import static org.junit.Assert.*;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 /**
  *
@@ -52,4 +59,62 @@ public class ScriptValueTest {
         assertTrue(temp instanceof List);
     }
     
+    @Test
+    public void testCopyIsDeepAndStructural() {
+        DocumentContext doc = JsonPath.parse("{ foo: { bar: [1, 2] }, baz: 'x' }");
+        ScriptValue copy = new ScriptValue(doc).copy();
+        DocumentContext copyDoc = copy.getValue(DocumentContext.class);
+        copyDoc.set("$.foo.bar[0]", 5);
+        assertEquals(1, (int) doc.read("$.foo.bar[0]"));
+        assertEquals(5, (int) copyDoc.read("$.foo.bar[0]"));
+        Map<String, Object> map = doc.read("$");
+        copy = new ScriptValue(map).copy();
+        assertEquals(MAP, copy.getType());
+        Map<String, Object> copyMap = copy.getValue(Map.class);
+        assertNotSame(map.get("foo"), copyMap.get("foo"));
+        assertEquals(map, copyMap);
+        ScriptValue js = Script.evalJsExpression("({ a: [1, { b: 2 }], f: function(){ return 1 } })", null);
+        assertEquals(JS_OBJECT, js.getType());
+        copyMap = js.copy().getValue(Map.class);
+        assertEquals(Arrays.asList(1, Collections.singletonMap("b", 2)), copyMap.get("a"));
+        assertTrue(new ScriptValue(copyMap.get("f")).isFunction());
+        Document xml = XmlUtils.toXmlDoc("<root><foo>bar</foo></root>");
+        copy = new ScriptValue(xml).copy();
+        Node copyNode = copy.getValue(Node.class);
+        XmlUtils.setByPath(copyNode, "/root/foo", "baz");
+        assertEquals("bar", XmlUtils.getTextValueByPath(xml, "/root/foo"));
+        assertEquals("baz", XmlUtils.getTextValueByPath(copyNode, "/root/foo"));
+    }
+
+    @Test
+    public void testFingerprintIsCachedUntilModification() {
+        ScriptEnv env = ScriptEnv.init(null, new File("."));
+        ScriptContext ctx = new ScriptContext(env, new CallContext(null, 0, null, -1, false, false, DummyHttpClient.class.getName()));
+        ScriptValue sv = new ScriptValue(JsonPath.parse("{ foo: [1, 2.0, 'x'], bar: { baz: null } }"));
+        assertNull(sv.getCachedFingerprint(ctx));
+        ScriptValue.Fingerprint fp = sv.getFingerprint(ctx);
+        assertEquals(7, fp.size);
+        assertFalse(fp.macros);
+        assertSame(fp, sv.getFingerprint(ctx));
+        assertSame(fp, sv.getCachedFingerprint(ctx));
+        // key order and number types do not matter
+        ScriptValue.Fingerprint other = new ScriptValue(JsonPath.parse("{ bar: { baz: null }, foo: [1.0, 2, 'x'] }")).getFingerprint(ctx);
+        assertEquals(fp.size, other.size);
+        assertEquals(fp.hash, other.hash);
+        ctx.onModification();
+        assertNull(sv.getCachedFingerprint(ctx));
+        assertNotSame(fp, sv.getFingerprint(ctx));
+        assertEquals(fp.hash, sv.getFingerprint(ctx).hash);
+        // a fingerprint is only trusted within the contexts that share the counter
+        ScriptContext otherCtx = new ScriptContext(env, new CallContext(null, 0, null, -1, false, false, DummyHttpClient.class.getName()));
+        assertNull(sv.getCachedFingerprint(otherCtx));
+        ScriptContext calledCtx = new ScriptContext(env, new CallContext(ctx, 1, null, -1, false, false, null));
+        assertNotNull(sv.getCachedFingerprint(calledCtx));
+        // any js evaluation could have changed the value
+        Script.evalJsExpression("1 + 1", ctx);
+        assertNull(sv.getCachedFingerprint(ctx));
+        assertTrue(new ScriptValue(JsonPath.parse("{ foo: '#number' }")).getFingerprint(ctx).macros);
+        assertNull(new ScriptValue("foo").getFingerprint(ctx));
+    }
+
 }
@@ -1,8 +1,13 @@
 package com.intuit.karate;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.slf4j.Logger;
@@ -263,4 +268,29 @@ public class XmlUtilsTest {
         assertEquals("/bar/baz/@ban", XmlUtils.stripNameSpacePrefixes("/foo:bar/foo:baz/@ban"));
     }
 
+    @Test
+    public void testXpathsCompiledOncePerThreadAndSafeAcrossThreads() throws Exception {
+        LruCache cache = XmlUtils.getXpathCache();
+        Document doc = XmlUtils.toXmlDoc(ACTUAL);
+        String path = "/Envelope/Body/QueryUsageBalanceResponse/Result/Error/Code";
+        assertEquals("DAT_USAGE_1003", XmlUtils.getTextValueByPath(doc, path));
+        long hits = cache.getHitCount();
+        assertEquals("DAT_USAGE_1003", XmlUtils.getTextValueByPath(doc, path));
+        assertEquals(hits + 1, cache.getHitCount());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList();
+            for (int i = 0; i < 100; i++) {
+                String xml = "<foo><bar>" + i + "</bar></foo>";
+                Callable<String> task = () -> XmlUtils.toString(XmlUtils.toXmlDoc(xml)) + XmlUtils.getTextValueByPath(XmlUtils.toXmlDoc(xml), "/foo/bar");
+                futures.add(executor.submit(task));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals("<foo><bar>" + i + "</bar></foo>" + i, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,6 @@
+function() {
+  var counter = Java.type('com.intuit.karate.ConfigTest').COUNTER;
+  counter.incrementAndGet();
+  var base = 'http://localhost/';
+  return { helper: function(p){ return base + p } };
+}
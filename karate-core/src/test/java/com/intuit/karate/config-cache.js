@@ -0,0 +1,6 @@
+function() {
+  var counter = Java.type('com.intuit.karate.ConfigTest').COUNTER;
+  counter.incrementAndGet();
+  karate.configure('headers', function(){ return { token: karate.get('token') } });
+  return { data: { foo: 'bar' }, getToken: function(){ return karate.get('token') } };
+}
@@ -24,14 +24,19 @@
 package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
+import com.intuit.karate.XmlUtils;
 import cucumber.api.CucumberOptions;
 import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 /**
  *
@@ -72,6 +77,23 @@ public class CucumberRunnerTest {
         assertTrue(contains(reportPath, "When def a = 55"));
     }  
     
+    @Test 
+    public void testFailedScenarioReportIsWellFormed() throws Exception {
+        String reportPath = "target/multi-scenario-fail.xml";
+        File file = new File("src/test/java/com/intuit/karate/cucumber/multi-scenario-fail.feature");
+        KarateJunitAndJsonReporter reporter = run(file, reportPath);
+        Document doc = XmlUtils.toXmlDoc(FileUtils.toString(new File(reportPath)));
+        Element root = doc.getDocumentElement();
+        assertEquals("testsuite", root.getNodeName());
+        assertEquals(reporter.getJunitFormatter().getTestCount() + "", root.getAttribute("tests"));
+        assertEquals("1", root.getAttribute("failures"));
+        assertEquals(1, root.getElementsByTagName("failure").getLength());
+        Element failure = (Element) root.getElementsByTagName("failure").item(0);
+        // line-breaks in the message survive the round trip
+        assertTrue(failure.getAttribute("message").contains("a != 1\n"));
+        assertTrue(failure.getTextContent().contains("StackTrace:"));
+    }
+    
     @Test 
     public void testParallel() {
         KarateStats stats = CucumberRunner.parallel(getClass(), 1);
@@ -87,6 +109,58 @@ public class CucumberRunnerTest {
         assertTrue(stats.getFailedMap().keySet().contains("com.intuit.karate.cucumber.multi-scenario-fail"));
     }    
     
+    @Test 
+    public void testParallelScenarios() {
+        KarateStats stats = CucumberRunner.parallel(getClass(), 3, "target/scenario-reports", true);
+        assertEquals(2, stats.getFailCount());
+        String pathBase = "target/scenario-reports/TEST-com.intuit.karate.cucumber.";
+        assertTrue(contains(pathBase + "scenario.xml", "Then match b == { foo: 'bar'}"));
+        assertTrue(contains(pathBase + "outline.xml", "Then assert a == 55"));
+        assertTrue(contains(pathBase + "multi-scenario.xml", "Then assert a != 2"));
+        assertTrue(contains(pathBase + "multi-scenario-fail.xml", "Then assert a != 2..........................................................passed"));
+        assertEquals(2, stats.getFailedMap().size());
+        assertTrue(stats.getFailedMap().keySet().contains("com.intuit.karate.cucumber.no-scenario-name"));
+        assertTrue(stats.getFailedMap().keySet().contains("com.intuit.karate.cucumber.multi-scenario-fail"));
+        KarateStats sequential = CucumberRunner.parallel(getClass(), 1);
+        assertEquals(sequential.getTestCount(), stats.getTestCount());
+    }    
+    
+    @Test
+    public void testParallelScheduledUsingPreviousTimings() {
+        File history = new File("target/timing-reports/" + KarateTimings.FILE_NAME);
+        history.delete();
+        KarateStats first = CucumberRunner.parallel(getClass(), 2, "target/timing-reports");
+        assertEquals(-1, first.getPredictedMakespan(), 0);
+        assertTrue(history.exists());
+        KarateTimings timings = new KarateTimings(history);
+        assertNotNull(timings.get("com.intuit.karate.cucumber.scenario"));
+        KarateStats second = CucumberRunner.parallel(getClass(), 2, "target/timing-reports");
+        assertTrue(second.getPredictedMakespan() >= 0);
+        assertEquals(first.getTestCount(), second.getTestCount());
+        CucumberRunner.parallel(getClass(), 2, "target/timing-reports", true);
+        timings = new KarateTimings(history); // only what was run the last time is kept
+        assertNotNull(timings.get("com.intuit.karate.cucumber.scenario:8"));
+        assertNull(timings.get("com.intuit.karate.cucumber.scenario"));
+        // longest first, greedily on to the least loaded thread
+        assertEquals(5, KarateTimings.makespan(Arrays.asList(1d, 2d, 3d, 4d), 2), 0);
+        assertEquals(4, KarateTimings.makespan(Arrays.asList(1d, 2d, 3d, 4d), 4), 0);
+    }
+    
+    @Test
+    public void testTimingsDoNotDependOnLocale() {
+        File file = new File("target/timing-reports/locale-" + KarateTimings.FILE_NAME);
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            KarateTimings timings = new KarateTimings(file);
+            timings.put("foo", 1.5);
+            timings.save();
+        } finally {
+            Locale.setDefault(locale);
+        }
+        assertEquals(1.5, new KarateTimings(file).get("foo"), 0);
+    }
+    
     @Test
     public void testRunningFeatureFromJavaApi() {
         Map<String, Object> result = CucumberRunner.runFeature(getClass(), "scenario.feature", null, true);
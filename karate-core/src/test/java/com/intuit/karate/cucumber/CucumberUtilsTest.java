@@ -2,6 +2,9 @@ package com.intuit.karate.cucumber;
 
 import com.intuit.karate.CallContext;
 import com.intuit.karate.ScriptEnv;
+import cucumber.runtime.StepDefinitionMatch;
+import gherkin.I18n;
+import gherkin.formatter.model.Step;
 import java.io.File;
 import java.io.InputStream;
 import java.util.List;
@@ -74,6 +77,32 @@ public class CucumberUtilsTest {
         assertFalse(step.isPriorTextPresent());      
     }
     
+    private StepDefinitionMatch getMatch(KarateBackend backend, String text) {
+        Step step = new Step(null, "* ", text, 1, null, null);
+        return backend.stepDefinitionMatch("test.feature", step, new I18n("en"));
+    }
+    
+    private void runStep(KarateBackend backend, String text) throws Throwable {
+        getMatch(backend, text).runStep(new I18n("en"));
+    }
+    
+    @Test
+    public void testStepDefinitionsSharedAcrossBackends() throws Throwable {
+        ScriptEnv env = getEnv();
+        CallContext callContext = new CallContext(null, 0, null, -1, false, true, null);
+        KarateBackend first = CucumberUtils.getBackendWithGlue(env, callContext);
+        KarateBackend second = CucumberUtils.getBackendWithGlue(env, callContext);
+        runStep(first, "def a = 1");
+        runStep(second, "def a = 2");
+        assertEquals(1, first.getVars().get("a").getValue());
+        assertEquals(2, second.getVars().get("a").getValue());
+        // repeated step text is served from the step-match cache
+        runStep(second, "def a = 1");
+        assertEquals(1, second.getVars().get("a").getValue());
+        assertEquals(2, getMatch(first, "def a = 1").getArguments().size());
+        assertNull(getMatch(first, "no such step"));
+    }
+    
     @Test
     public void testScenarioOutline() {
         String filename = "outline.feature";
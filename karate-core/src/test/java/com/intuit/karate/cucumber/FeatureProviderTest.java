@@ -25,11 +25,20 @@ package com.intuit.karate.cucumber;
 
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.Match;
+import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptValueMap;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
+import static org.junit.Assert.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +53,8 @@ public class FeatureProviderTest {
     private ScriptValueMap getRequest(String name) {
         return Match.init()
                 .defText("name", name)
+                .defText("requestUri", "/cats/" + name)
+                .defText("requestMethod", "POST")
                 .def("request", "{ name: '#(name)' }").vars();
     }
 
@@ -60,4 +71,41 @@ public class FeatureProviderTest {
         Match.equals(list, "[{ id: 1, name: 'Billie' }, { id: 2, name: 'Wild' }]");
     }
 
+    @Test
+    public void testServerConcurrent() throws Exception {
+        File file = FileUtils.getFileRelativeTo(getClass(), "server-concurrent.feature");
+        FeatureWrapper featureWrapper = FeatureWrapper.fromFile(file);
+        FeatureProvider provider = new FeatureProvider(featureWrapper);
+        assertTrue(provider.isConcurrent());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Callable<ScriptContext>> tasks = new ArrayList();
+        for (int i = 0; i < 20; i++) {
+            String name = "cat" + i;
+            tasks.add(() -> provider.call(getRequest(name)));
+        }
+        Set<Integer> ids = new HashSet();
+        for (Future<ScriptContext> future : executor.invokeAll(tasks)) {
+            ScriptContext context = future.get();
+            Map<String, Object> response = context.getVars().get("response").getAsMap();
+            ids.add((Integer) response.get("id"));
+            // each request sees its own path params
+            assertEquals(response.get("name"), response.get("path"));
+            assertNotSame(provider.getContext(), context);
+        }
+        executor.shutdown();
+        assertEquals(20, ids.size());
+        List<Map> list = provider.getContext().getVars().get("cats").getAsList();
+        assertEquals(20, list.size());
+        // the shared store keeps key order and null values
+        Map<String, Object> db = provider.getContext().getVars().get("db").getAsMap();
+        assertEquals("[b, a, c]", db.keySet().toString());
+        assertTrue(db.containsKey("a"));
+        assertNull(db.get("a"));
+        Map<String, Object> c = (Map) db.get("c");
+        assertTrue(c.containsKey("y"));
+        assertEquals(20, ((List) c.get("x")).size());
+        // request variables do not leak into the shared context
+        assertNull(provider.getContext().getVars().get("cat"));
+    }
+
 }
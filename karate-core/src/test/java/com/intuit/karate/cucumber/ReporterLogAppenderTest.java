@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class ReporterLogAppenderTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReporterLogAppenderTest.class);
+    
+    @Test
+    public void testOnlyLogsOfOwnThreadAreCollected() throws Exception {
+        ReporterLogAppender appender = new ReporterLogAppender();
+        logger.info("from main");
+        Thread thread = new Thread(() -> logger.info("from other"));
+        thread.start();
+        thread.join();
+        String log = appender.collect();
+        assertTrue(log.contains("from main"));
+        assertFalse(log.contains("from other"));
+        assertEquals("", appender.collect());
+        appender.detach();
+        logger.info("after detach");
+        assertEquals("", appender.collect());
+    }
+    
+    @Test
+    public void testLogIsCappedAndKeepsMostRecentLines() {
+        ReporterLogAppender appender = new ReporterLogAppender(200);
+        for (int i = 0; i < 20; i++) {
+            logger.info("line number {}", i);
+        }
+        String log = appender.collect();
+        assertTrue(log.startsWith("[... "));
+        assertTrue(log.contains("bytes of log skipped"));
+        assertTrue(log.contains("line number 19"));
+        assertFalse(log.contains("line number 0\n"));
+        assertTrue(log.length() < 300);
+        appender.detach();
+    }
+    
+    @Test
+    public void testReporterStopsCollectingWhenDone() {
+        KarateHtmlReporter reporter = new KarateHtmlReporter(new DummyReporter(), new DummyFormatter());
+        logger.info("before done");
+        reporter.done();
+        logger.info("after done");
+        assertEquals("", reporter.logAppender.collect());
+        reporter.logAppender.detach();
+    }
+    
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Intuit Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.intuit.karate.cucumber;
+
+import com.intuit.karate.FileUtils;
+import com.intuit.karate.Match;
+import com.intuit.karate.ScriptValueMap;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ *
+ * @author pthomas3
+ */
+public class ScenarioRouterTest {
+
+    private static ScriptValueMap getRequest(String method, String uri, String contentType, String name) {
+        Map<String, List<String>> headers = contentType == null ? Collections.emptyMap()
+                : Collections.singletonMap("Content-Type", Collections.singletonList(contentType));
+        Map<String, List<String>> params = name == null ? Collections.emptyMap()
+                : Collections.singletonMap("name", Collections.singletonList(name));
+        return Match.init()
+                .defText(ScriptValueMap.VAR_REQUEST_METHOD, method)
+                .defText(ScriptValueMap.VAR_REQUEST_URI, uri)
+                .def(ScriptValueMap.VAR_REQUEST_HEADERS, headers)
+                .def(ScriptValueMap.VAR_REQUEST_PARAMS, params).vars();
+    }
+
+    @Test
+    public void testRouting() {
+        File file = FileUtils.getFileRelativeTo(getClass(), "router.feature");
+        FeatureProvider provider = new FeatureProvider(FeatureWrapper.fromFile(file));
+        ScriptValueMap vars = provider.handle(getRequest("GET", "/cats/42?foo=bar", null, null));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'get-cat', id: '42' }");
+        vars = provider.handle(getRequest("POST", "/cats", "application/xml", null));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'post-cat-xml' }");
+        vars = provider.handle(getRequest("post", "/cats", "application/json", null));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'post-cat' }");
+        // the js fallback comes first in the feature, so it has to win
+        vars = provider.handle(getRequest("GET", "/cats", null, "Billie"));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'dynamic' }");
+        vars = provider.handle(getRequest("GET", "/cats", null, null));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'any-cats' }");
+        vars = provider.handle(getRequest("PUT", "/dogs/1", null, null));
+        Match.equals(vars.get("response").getAsMap(), "{ route: 'catch-all' }");
+    }
+
+}
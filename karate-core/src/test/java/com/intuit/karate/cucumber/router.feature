@@ -0,0 +1,20 @@
+@ignore
+Feature:
+
+Scenario: pathMatches('/cats/{id}') && methodIs('get')
+* def response = { route: 'get-cat', id: '#(pathParams.id)' }
+
+Scenario: pathMatches('/cats') && methodIs('post') && typeContains('xml')
+* def response = { route: 'post-cat-xml' }
+
+Scenario: pathMatches('/cats') && methodIs('post')
+* def response = { route: 'post-cat' }
+
+Scenario: paramValue('name') != null
+* def response = { route: 'dynamic' }
+
+Scenario: pathMatches('/cats')
+* def response = { route: 'any-cats' }
+
+Scenario:
+* def response = { route: 'catch-all' }
@@ -0,0 +1,17 @@
+@ignore
+Feature:
+
+Background:
+* configure concurrent = true
+* def AtomicInteger = Java.type('java.util.concurrent.atomic.AtomicInteger')
+* def counter = new AtomicInteger()
+* def cats = []
+* def db = { b: 1, a: null, c: { y: null, x: [] } }
+
+Scenario: pathMatches('/cats/{name}') && methodIs('post')
+* def cat = request
+* set cat.id = counter.incrementAndGet()
+* set cat.path = pathParams.name
+* set cats[] = cat
+* set db.c.x[] = cat.id
+* def response = cat
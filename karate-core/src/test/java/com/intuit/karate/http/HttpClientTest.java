@@ -27,9 +27,15 @@ import com.intuit.karate.CallContext;
 import com.intuit.karate.FileUtils;
 import com.intuit.karate.ScriptContext;
 import com.intuit.karate.ScriptEnv;
+import com.intuit.karate.ScriptValue;
+import com.intuit.karate.ScriptValueMap;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -58,4 +64,83 @@ public class HttpClientTest {
         assertArrayEquals(response.getBody(), "hello John".getBytes());        
     }
     
+    private static class BodyHttpClient extends DummyHttpClient {
+        
+        String body;
+
+        @Override
+        protected HttpResponse makeHttpRequest(String entity, long startTime) {
+            return readResponse(new ByteArrayInputStream(body.getBytes()), startTime);
+        }
+        
+        HttpResponse invoke(ScriptContext context, String body) {
+            this.body = body;
+            HttpRequestBuilder request = new HttpRequestBuilder();
+            request.setUrl("http://localhost");
+            request.setMethod("GET");
+            HttpResponse response = invoke(request, context);
+            HttpUtils.updateResponseVars(response, context.getVars(), context);
+            return response;
+        }
+        
+    }
+    
+    @Test
+    public void testStreamResponse() {
+        ScriptContext context = getContext();
+        BodyHttpClient client = new BodyHttpClient();
+        HttpResponse response = client.invoke(context, "{ foo: 'bar' }");
+        assertNull(response.getBodyDigest());
+        assertNull(context.getVars().get(ScriptValueMap.VAR_RESPONSE_DIGEST));
+        context.configure("streamResponse", "10");
+        String body = "0123456789abcdef";
+        response = client.invoke(context, body);
+        File file = response.getBodyFile();
+        assertTrue(file.exists());
+        assertEquals(16, response.getBodyLength());
+        assertEquals("9f9f5111f7b27a781f1f1ddde5ebc2dd2b796bfc7365c9c28b548e564176929f", response.getBodyDigest());
+        assertEquals(16L, context.getVars().get(ScriptValueMap.VAR_RESPONSE_LENGTH).getValue());
+        ScriptValue sv = context.getVars().get(ScriptValueMap.VAR_RESPONSE);
+        assertTrue(sv.isStream());
+        assertEquals(body, sv.getAsString());
+        InputStream is = response.getBodyAsStream();
+        // small enough to stay in memory, but the digest is still there
+        response = client.invoke(context, "hello");
+        assertNull(response.getBodyFile());
+        assertFalse(file.exists()); // the previous spool is cleaned up
+        try {
+            is.read();
+            fail("stream should have been closed");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", response.getBodyDigest());
+        assertEquals("hello", context.getVars().get(ScriptValueMap.VAR_RESPONSE).getAsString());
+        context.configure("streamResponse", "false");
+        client.invoke(context, "hello");
+        assertNull(context.getVars().get(ScriptValueMap.VAR_RESPONSE_LENGTH));
+    }
+    
+    @Test
+    public void testResponseParsedOnlyWhenFirstUsed() {
+        ScriptContext context = getContext();
+        BodyHttpClient client = new BodyHttpClient();
+        client.invoke(context, "{ foo: 'bar' }");
+        ScriptValueMap copy = context.getVars().copy();
+        ScriptValue sv = context.getVars().get(ScriptValueMap.VAR_RESPONSE);
+        assertEquals(ScriptValue.Type.JSON, sv.getType());
+        // parsed once and shared
+        assertSame(sv.getValue(), copy.get(ScriptValueMap.VAR_RESPONSE).getValue());
+        AtomicInteger count = new AtomicInteger();
+        ScriptValueMap vars = new ScriptValueMap();
+        vars.putLazy("foo", () -> count.incrementAndGet());
+        assertTrue(vars.containsKey("foo"));
+        assertEquals(0, count.get());
+        assertEquals(1, vars.get("foo").getValue());
+        assertEquals(1, vars.get("foo").getValue());
+        vars.putLazy("bar", () -> count.incrementAndGet());
+        vars.forEach((k, v) -> assertEquals(ScriptValue.Type.PRIMITIVE, v.getType()));
+        assertEquals(2, count.get());
+    }
+    
 }
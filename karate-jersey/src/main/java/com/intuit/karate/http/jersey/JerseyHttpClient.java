@@ -224,11 +224,9 @@ public class JerseyHttpClient extends HttpClient<Entity> {
         } else {
             resp = builder.method(method);
         }
-        byte[] bytes = resp.readEntity(byte[].class);
-        long responseTime = getResponseTime(startTime);
-        HttpResponse response = new HttpResponse(responseTime);
+        HttpResponse response = readResponse(resp.readEntity(InputStream.class), startTime);
+        resp.close();
         response.setUri(getRequestUri());
-        response.setBody(bytes);
         response.setStatus(resp.getStatus());
         for (NewCookie c : resp.getCookies().values()) {
             com.intuit.karate.http.Cookie cookie = new com.intuit.karate.http.Cookie(c.getName(), c.getValue());
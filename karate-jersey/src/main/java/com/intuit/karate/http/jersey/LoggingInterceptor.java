@@ -113,7 +113,9 @@ public class LoggingInterceptor implements ClientRequestFilter, ClientResponseFi
         sb = new StringBuilder();
         sb.append('\n').append(id).append(" < ").append(response.getStatus()).append('\n');
         logHeaders(sb, id, '<', response.getHeaders(), null);
-        if (response.hasEntity() && isPrintable(response.getMediaType())) {
+        if (response.hasEntity() && HttpUtils.isStreamedBody(response.getLength(), context.getConfig())) {
+            sb.append("(streamed, not logged)\n");
+        } else if (response.hasEntity() && isPrintable(response.getMediaType())) {
             InputStream is = response.getEntityStream();
             if (!is.markSupported()) {
                 is = new BufferedInputStream(is);
@@ -141,10 +141,13 @@ public class Karate extends ParentRunner<KarateFeature> {
 
     @Override
     public void run(RunNotifier notifier) {
-        super.run(notifier);
-        if (reporter != null) { // can happen for zero features found
-            reporter.done();
-            reporter.close();
+        try {
+            super.run(notifier);
+        } finally {
+            if (reporter != null) { // can happen for zero features found
+                reporter.done();
+                reporter.close();
+            }
         }
     }   
 
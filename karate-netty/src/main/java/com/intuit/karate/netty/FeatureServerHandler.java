@@ -41,11 +41,15 @@ import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.CharsetUtil;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -73,8 +77,9 @@ public class FeatureServerHandler extends SimpleChannelInboundHandler<FullHttpRe
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest msg) {
         provider.getContext().logger.debug("handling method: {}, uri: {}", msg.method(), msg.uri());
+        FullHttpResponse response;
         if (provider.isCorsEnabled() && msg.method().equals(HttpMethod.OPTIONS)) {
-            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
             HttpHeaders responseHeaders = response.headers();
             responseHeaders.set(HttpUtils.HEADER_ALLOW, ALLOWED_METHODS);
             responseHeaders.set(HttpUtils.HEADER_AC_ALLOW_ORIGIN, "*");
@@ -83,7 +88,6 @@ public class FeatureServerHandler extends SimpleChannelInboundHandler<FullHttpRe
             if (requestHeaders != null) {
                 responseHeaders.set(HttpUtils.HEADER_AC_ALLOW_HEADERS, requestHeaders);
             }
-            ctx.write(response);
         } else {
             StringUtils.Pair url = HttpUtils.parseUriIntoUrlBaseAndPath(msg.uri());
             HttpRequest request = new HttpRequest();
@@ -106,16 +110,62 @@ public class FeatureServerHandler extends SimpleChannelInboundHandler<FullHttpRe
                 content.readBytes(bytes);
                 request.setBody(bytes);
             }
-            writeResponse(request, ctx);
+            response = writeResponse(request);
+        }
+        // requests on a channel are handled one at a time on its event loop, so pipelined
+        // requests are answered in order, and the writes are flushed in channelReadComplete()
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        if (HttpUtil.isKeepAlive(msg)) {
+            if (!msg.protocolVersion().isKeepAliveDefault()) { // http 1.0
+                response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            }
+            ctx.write(response);
+        } else {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            ctx.close();
+        } else {
+            super.userEventTriggered(ctx, evt);
         }
-        ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
     }
 
     private static final String VAR_AFTER_SCENARIO = "afterScenario";
     
+    private static class Result {
+        
+        ScriptContext context;
+        ScriptValue responseValue;
+        ScriptValue responseStatus;
+        ScriptValue afterScenario;
+        Map<String, Object> responseHeadersMap;
+        Map<String, Object> configResponseHeadersMap;
+        
+    }
+    
+    private Result handle(Match match) { // BEGIN TRANSACTION !
+        Result result = new Result();
+        ScriptContext context = provider.call(match.vars());
+        result.context = context;
+        ScriptValueMap vars = context.getVars();
+        ScriptValue configResponseHeaders = context.getConfig().getResponseHeaders();
+        result.responseValue = vars.remove(ScriptValueMap.VAR_RESPONSE);
+        result.responseStatus = vars.remove(ScriptValueMap.VAR_RESPONSE_STATUS);
+        ScriptValue responseHeaders = vars.remove(ScriptValueMap.VAR_RESPONSE_HEADERS);
+        result.afterScenario = vars.remove(VAR_AFTER_SCENARIO);
+        result.configResponseHeadersMap = configResponseHeaders == null ? null : configResponseHeaders.evalAsMap(context);
+        result.responseHeadersMap = responseHeaders == null ? null : responseHeaders.evalAsMap(context);
+        return result;
+    } // END TRANSACTION !!
+    
     private final StringBuilder sb = new StringBuilder();
     
-    private void writeResponse(HttpRequest request, ChannelHandlerContext ctx) {
+    private FullHttpResponse writeResponse(HttpRequest request) {
         sb.setLength(0);
         Match match = Match.init()
                 .defText(ScriptValueMap.VAR_REQUEST_URL_BASE, request.getUrlBase())
@@ -128,21 +178,23 @@ public class FeatureServerHandler extends SimpleChannelInboundHandler<FullHttpRe
             String requestBody = FileUtils.toString(request.getBody());
             match.def(ScriptValueMap.VAR_REQUEST, requestBody);
         }
-        ScriptValue responseValue, responseStatus, responseHeaders, afterScenario;
-        Map<String, Object> responseHeadersMap, configResponseHeadersMap;
-        // this is a sledgehammer approach to concurrency !
+        Result result;
+        // unless the mock has '* configure concurrent = true' - where every request runs in its
+        // own context forked from the Background, this is a sledgehammer approach to concurrency !
         // which is why for simulating 'delay', users should use the VAR_AFTER_SCENARIO (see end)
-        synchronized (provider) { // BEGIN TRANSACTION !
-            ScriptValueMap result = provider.handle(match.vars());
-            ScriptContext context = provider.getContext();
-            ScriptValue configResponseHeaders = context.getConfig().getResponseHeaders();
-            responseValue = result.remove(ScriptValueMap.VAR_RESPONSE);
-            responseStatus = result.remove(ScriptValueMap.VAR_RESPONSE_STATUS);
-            responseHeaders = result.remove(ScriptValueMap.VAR_RESPONSE_HEADERS);            
-            afterScenario = result.remove(VAR_AFTER_SCENARIO);
-            configResponseHeadersMap = configResponseHeaders == null ? null : configResponseHeaders.evalAsMap(context);
-            responseHeadersMap = responseHeaders == null ? null : responseHeaders.evalAsMap(context);
-        } // END TRANSACTION !!
+        if (provider.isConcurrent()) {
+            result = handle(match);
+        } else {
+            synchronized (provider) {
+                result = handle(match);
+            }
+        }
+        ScriptContext context = result.context;
+        ScriptValue responseValue = result.responseValue;
+        ScriptValue responseStatus = result.responseStatus;
+        ScriptValue afterScenario = result.afterScenario;
+        Map<String, Object> responseHeadersMap = result.responseHeadersMap;
+        Map<String, Object> configResponseHeadersMap = result.configResponseHeadersMap;
         HttpResponseStatus nettyResponseStatus;
         if (responseStatus == null) {
             nettyResponseStatus = HttpResponseStatus.OK;
@@ -194,9 +246,9 @@ public class FeatureServerHandler extends SimpleChannelInboundHandler<FullHttpRe
         // functions here are outside of the 'transaction' and should not mutate global state !
         // typically this is where users can set up an artificial delay or sleep
         if (afterScenario != null && afterScenario.isFunction()) {
-            afterScenario.invokeFunction(provider.getContext());
+            afterScenario.invokeFunction(context);
         }        
-        ctx.write(response);
+        return response;
     }
 
     @Override
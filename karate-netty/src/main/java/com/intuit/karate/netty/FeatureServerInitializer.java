@@ -31,6 +31,7 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.ssl.SslContext;
+import io.netty.handler.timeout.IdleStateHandler;
 import java.io.File;
 import java.util.Map;
 
@@ -40,11 +41,25 @@ import java.util.Map;
  */
 public class FeatureServerInitializer extends ChannelInitializer<SocketChannel> {
     
+    public static final String IDLE_TIMEOUT = "karate.server.idle.timeout";
+    
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 60;
+    
     private final SslContext sslCtx;
     private final FeatureProvider provider;
+    private final int idleTimeoutSeconds;
     
     public FeatureServerInitializer(SslContext sslCtx, File featureFile, Map<String, Object> vars) {
+        this(sslCtx, featureFile, vars, Integer.getInteger(IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT_SECONDS));
+    }
+    
+    /**
+     * @param idleTimeoutSeconds keep-alive connections with no reads or writes
+     * for this long are closed, zero or less means never
+     */
+    public FeatureServerInitializer(SslContext sslCtx, File featureFile, Map<String, Object> vars, int idleTimeoutSeconds) {
         this.sslCtx = sslCtx;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
         FeatureWrapper featureWrapper = FeatureWrapper.fromFile(featureFile);
         provider = new FeatureProvider(featureWrapper, vars);        
     }
@@ -55,6 +70,9 @@ public class FeatureServerInitializer extends ChannelInitializer<SocketChannel>
         if (sslCtx != null) {
             p.addLast(sslCtx.newHandler(ch.alloc()));
         }
+        if (idleTimeoutSeconds > 0) {
+            p.addLast(new IdleStateHandler(0, 0, idleTimeoutSeconds));
+        }
         p.addLast(new HttpServerCodec());
         p.addLast(new HttpObjectAggregator(1048576));
         p.addLast(new FeatureServerHandler(provider));